@@ -0,0 +1,96 @@
+package com.example.openai.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code /embed} throughput with 64 concurrent callers against {@link StubEmbeddingModel}, which sleeps
+ * {@code latencyMillis} per request. {@code perRequest} embeds and inserts every text on its own, as
+ * {@code /embed} did before; {@code coalesced} goes through {@link EmbeddingCoalescer} with the given
+ * window and batch size, so one model call and one multi-row insert per batch. Every text is distinct and
+ * the embedding cache is disabled, so each request needs the model. The {@code documents} inserts run
+ * against {@link StubDataSource}, which charges {@code insertLatencyMillis} per statement, and the
+ * upstream governor has no rate limits and room for every caller.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=EmbeddingCoalescerBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class EmbeddingCoalescerBenchmark {
+
+    @Param({"20"})
+    public long latencyMillis;
+
+    @Param({"2"})
+    public long insertLatencyMillis;
+
+    @Param({"0", "2", "10"})
+    public long windowMillis;
+
+    @Param({"64"})
+    public int maxBatchSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private JdbcTemplate jdbcTemplate;
+    private EmbeddingCache embeddingCache;
+    private EmbeddingCoalescer coalescer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(new StubDataSource(insertLatencyMillis));
+        UpstreamGovernor upstreamGovernor = new UpstreamGovernor(new StandardEnvironment(), 0, 0, 64, 1, 64, 1, 1, 1, 0);
+        embeddingCache = new EmbeddingCache(new StubEmbeddingModel(1536, latencyMillis), null, upstreamGovernor, "stub", 0, false);
+        coalescer = new EmbeddingCoalescer(embeddingCache, jdbcTemplate, windowMillis, maxBatchSize, 4, 10_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        coalescer.close();
+    }
+
+    @Benchmark
+    public float[] perRequest() {
+        String text = nextText();
+        float[] vector = embeddingCache.embed(text);
+        jdbcTemplate.update(connection -> {
+            PgVectorCodec.registerBinaryTransfer(connection);
+            PreparedStatement statement = connection.prepareStatement("INSERT INTO documents (content, embedding) VALUES (?, ?)");
+            statement.setString(1, text);
+            statement.setObject(2, PgVectorCodec.toParameter(vector));
+            return statement;
+        });
+        return vector;
+    }
+
+    @Benchmark
+    public float[] coalesced() {
+        return coalescer.submit(nextText()).join();
+    }
+
+    private String nextText() {
+        return "document " + sequence.incrementAndGet();
+    }
+}
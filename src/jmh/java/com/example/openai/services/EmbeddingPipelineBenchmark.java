@@ -0,0 +1,148 @@
+package com.example.openai.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ingestion throughput against {@link StubEmbeddingModel} with adjustable per-request latency.
+ * {@code sequentialPerChunk} reproduces the old one-request-per-chunk loop; {@code pipeline}
+ * runs {@link RagIngestionPipeline}. One operation ingests the whole generated corpus.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=EmbeddingPipelineBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EmbeddingPipelineBenchmark {
+
+    @Param({"20", "50"})
+    public long latencyMillis;
+
+    @Param({"64"})
+    public int batchSize;
+
+    @Param({"1", "4"})
+    public int maxInFlight;
+
+    @Param({"20"})
+    public int files;
+
+    @Param({"12000"})
+    public int charsPerFile;
+
+    private Path corpusDir;
+    private List<Path> corpus;
+    private StubEmbeddingModel embeddingModel;
+    private DocumentTextExtractor textExtractor;
+    private TextChunker textChunker;
+    private RagIngestionPipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void createCorpus() throws IOException {
+        corpusDir = Files.createTempDirectory("rag-bench");
+        corpus = new ArrayList<>(files);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < files; i++) {
+            Path file = corpusDir.resolve("doc-" + i + ".txt");
+            Files.writeString(file, randomText(random, charsPerFile), StandardCharsets.UTF_8);
+            corpus.add(file);
+        }
+        embeddingModel = new StubEmbeddingModel(1536, latencyMillis);
+        textExtractor = new DocumentTextExtractor(new PdfTextExtractor(1, 50, 64L << 20, 1L << 30, 300));
+        textChunker = new TextChunker();
+        UpstreamGovernor upstreamGovernor = new UpstreamGovernor(new StandardEnvironment(), 0, 0, 64, 1, 64, 1, 1, 1, 0);
+        pipeline = new RagIngestionPipeline(new EmbeddingCache(embeddingModel, null, upstreamGovernor, "stub", 0, false), textExtractor, textChunker, 0, batchSize, 60_000, maxInFlight, 16);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCorpus() throws IOException {
+        try (Stream<Path> paths = Files.walk(corpusDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int sequentialPerChunk() {
+        int chunks = 0;
+        for (Path file : corpus) {
+            for (String chunk : textChunker.chunkText(textExtractor.extractText(file))) {
+                embeddingModel.embed(chunk);
+                chunks++;
+            }
+        }
+        return chunks;
+    }
+
+    @Benchmark
+    public int pipeline() {
+        CountingSink sink = new CountingSink();
+        pipeline.run(corpusDir, Map.of(), sink);
+        return sink.chunks;
+    }
+
+    private static final class CountingSink implements RagIngestionPipeline.IngestionSink {
+        private int chunks;
+
+        @Override
+        public void sourceUnchanged(TrackedSource source, boolean fingerprintChanged) {
+        }
+
+        @Override
+        public void sourceChanged(TrackedSource source, boolean replacesExisting) {
+        }
+
+        @Override
+        public void sourceChunked(TrackedSource source) {
+        }
+
+        @Override
+        public void chunksEmbedded(List<DocumentChunk> chunks) {
+            this.chunks += chunks.size();
+        }
+
+        @Override
+        public void sourcesRemoved(List<String> sourcePaths) {
+        }
+    }
+
+    static String randomText(SplittableRandom random, int length) {
+        StringBuilder builder = new StringBuilder(length + 16);
+        while (builder.length() < length) {
+            int wordLength = 2 + random.nextInt(9);
+            for (int i = 0; i < wordLength; i++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+            builder.append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.openai.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-k latency of {@link HnswGraph} against an exact scan over the same vectors, which is what
+ * pgvector does for a query without a usable index. Building the graph is part of setup.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=HnswSearchBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HnswSearchBenchmark {
+
+    @Param({"10000"})
+    public int chunks;
+
+    @Param({"1536"})
+    public int dimensions;
+
+    @Param({"4"})
+    public int topK;
+
+    @Param({"64"})
+    public int efSearch;
+
+    private HnswGraph graph;
+    private float[][] vectors;
+    private float[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        SplittableRandom random = new SplittableRandom(42);
+        graph = new HnswGraph(dimensions, 16, 200, chunks);
+        vectors = new float[chunks][];
+        for (int i = 0; i < chunks; i++) {
+            vectors[i] = randomUnitVector(random, dimensions);
+            graph.add(i, "/docs/doc-" + (i / 50) + ".txt", "doc-" + (i / 50) + ".txt", i % 50, "chunk " + i, vectors[i]);
+        }
+        graph.publish(List.of(), 1);
+
+        queries = new float[256][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = randomUnitVector(random, dimensions);
+        }
+    }
+
+    @Benchmark
+    public List<DocumentChunk> hnsw() {
+        return graph.search(nextQuery(), topK, efSearch);
+    }
+
+    @Benchmark
+    public int[] exactScan() {
+        float[] query = nextQuery();
+        int[] best = new int[topK];
+        float[] bestDistance = new float[topK];
+        Arrays.fill(bestDistance, Float.MAX_VALUE);
+        for (int i = 0; i < vectors.length; i++) {
+            float dot = 0;
+            for (int j = 0; j < dimensions; j++) {
+                dot += query[j] * vectors[i][j];
+            }
+            float distance = 1 - dot;
+            if (distance < bestDistance[topK - 1]) {
+                int slot = topK - 1;
+                while (slot > 0 && bestDistance[slot - 1] > distance) {
+                    bestDistance[slot] = bestDistance[slot - 1];
+                    best[slot] = best[slot - 1];
+                    slot--;
+                }
+                bestDistance[slot] = distance;
+                best[slot] = i;
+            }
+        }
+        return best;
+    }
+
+    private float[] nextQuery() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    static float[] randomUnitVector(SplittableRandom random, int dimensions) {
+        float[] vector = new float[dimensions];
+        double norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.openai.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-k latency of full-precision vs. {@code halfvec} vs. {@code binary} first-pass search with
+ * exact rerank, over {@link RagEvalSet}. Setup also prints recall@k against an exact scan and the
+ * on-disk size of the index and table for each mode. Needs the pgvector database from
+ * {@code docker/docker-compose.yml}; override with {@code -Dbench.jdbc.url=...}.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=QuantizedSearchBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QuantizedSearchBenchmark {
+
+    private static final String TABLE = "rag_eval_bench";
+    private static final String INDEX = "idx_rag_eval_bench_embedding";
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE rag_eval_bench (
+                id INTEGER PRIMARY KEY,
+                embedding vector(1536) NOT NULL
+            )
+            """;
+    private static final String COPY_SQL = "COPY rag_eval_bench (id, embedding) FROM STDIN (FORMAT BINARY)";
+    private static final String EXACT_SQL = "SELECT id FROM rag_eval_bench ORDER BY embedding <=> ? LIMIT ?";
+    private static final String RERANKED_SQL = """
+            SELECT id
+            FROM (SELECT id, embedding FROM rag_eval_bench ORDER BY %s LIMIT ?) candidates
+            ORDER BY embedding <=> ?
+            LIMIT ?
+            """;
+
+    @Param({"none", "halfvec", "binary"})
+    public String quantization;
+
+    @Param({"20000"})
+    public int documents;
+
+    @Param({"10"})
+    public int topK;
+
+    @Param({"4"})
+    public int rerankFactor;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private VectorQuantization mode;
+    private String searchSql;
+    private RagEvalSet evalSet;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/vectordb"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"),
+                true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        mode = VectorQuantization.fromProperty(quantization);
+        searchSql = mode == VectorQuantization.NONE ? EXACT_SQL : RERANKED_SQL.formatted(mode.orderBy("embedding"));
+
+        evalSet = RagEvalSet.generate(documents, 200, 42);
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (BinaryCopyWriter copy = BinaryCopyWriter.open(connection, COPY_SQL)) {
+                for (int i = 0; i < evalSet.documents.length; i++) {
+                    copy.startRow(2).writeInt(i).writeVector(evalSet.documents[i]);
+                }
+                return copy.finish();
+            }
+        });
+        jdbcTemplate.execute(VectorIndexSpec.hnsw(mode, 16, 64).createSql(INDEX, TABLE, false));
+        jdbcTemplate.execute("ANALYZE " + TABLE);
+
+        System.out.printf("%n[%s] recall@%d=%.3f index=%d KB table=%d KB%n",
+                quantization, topK, recall(),
+                jdbcTemplate.queryForObject("SELECT pg_relation_size('" + INDEX + "')", Long.class) / 1024,
+                jdbcTemplate.queryForObject("SELECT pg_total_relation_size('" + TABLE + "')", Long.class) / 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<Integer> search() {
+        next = (next + 1) % evalSet.queries.length;
+        return search(searchSql, evalSet.queries[next]);
+    }
+
+    private double recall() {
+        int found = 0;
+        for (float[] query : evalSet.queries) {
+            jdbcTemplate.execute("SET enable_indexscan = off");
+            Set<Integer> exact = new HashSet<>(search(EXACT_SQL, query));
+            jdbcTemplate.execute("RESET enable_indexscan");
+            for (Integer id : search(searchSql, query)) {
+                if (exact.contains(id)) {
+                    found++;
+                }
+            }
+        }
+        return found / (double) (evalSet.queries.length * topK);
+    }
+
+    private List<Integer> search(String sql, float[] query) {
+        return jdbcTemplate.query(
+                connection -> {
+                    PgVectorCodec.registerBinaryTransfer(connection);
+                    PreparedStatement statement = connection.prepareStatement(sql);
+                    PgVectorCodec.PgVector parameter = PgVectorCodec.toParameter(query);
+                    statement.setObject(1, parameter);
+                    if (sql.equals(EXACT_SQL)) {
+                        statement.setInt(2, topK);
+                    } else {
+                        statement.setInt(2, topK * rerankFactor);
+                        statement.setObject(3, parameter);
+                        statement.setInt(4, topK);
+                    }
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getInt("id")
+        );
+    }
+}
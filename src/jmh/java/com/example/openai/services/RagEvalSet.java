@@ -0,0 +1,55 @@
+package com.example.openai.services;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic evaluation corpus shaped like text embeddings: documents are grouped around topic
+ * centroids, and every query is a fresh point near one of those topics, so the true neighbours of
+ * a query are close together but not trivially separable. The same seed always yields the same set.
+ */
+final class RagEvalSet {
+
+    static final int DIMENSIONS = 1536;
+    private static final int TOPICS = 200;
+    private static final double TOPIC_SPREAD = 0.9;
+
+    final float[][] documents;
+    final float[][] queries;
+
+    private RagEvalSet(float[][] documents, float[][] queries) {
+        this.documents = documents;
+        this.queries = queries;
+    }
+
+    static RagEvalSet generate(int documentCount, int queryCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        float[][] topics = new float[TOPICS][];
+        for (int i = 0; i < TOPICS; i++) {
+            topics[i] = HnswSearchBenchmark.randomUnitVector(random, DIMENSIONS);
+        }
+        float[][] documents = new float[documentCount][];
+        for (int i = 0; i < documentCount; i++) {
+            documents[i] = nearTopic(random, topics[random.nextInt(TOPICS)]);
+        }
+        float[][] queries = new float[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            queries[i] = nearTopic(random, topics[random.nextInt(TOPICS)]);
+        }
+        return new RagEvalSet(documents, queries);
+    }
+
+    private static float[] nearTopic(SplittableRandom random, float[] topic) {
+        float[] noise = HnswSearchBenchmark.randomUnitVector(random, DIMENSIONS);
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) (topic[i] + TOPIC_SPREAD * noise[i]);
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.openai.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of a {@code /celebrity} model response against {@link OpenAiChatService#CELEBRITY_DETAILS_SCHEMA}:
+ * the previous path, which parsed the schema text on every call and hand-walked its keywords, against
+ * {@link StructuredOutputRegistry}, which compiled the schema once. Both parse the response itself.
+ * {@code invalid} responses break a nested {@code maxItems} constraint, so both paths end in an exception.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=StructuredOutputValidationBenchmark -Pjmh.profilers=gc</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StructuredOutputValidationBenchmark {
+
+    private static final String VALID_OUTPUT = """
+            {
+              "name": "Ada Lovelace",
+              "profession": "Mathematician",
+              "nationality": "British",
+              "birthDate": "1815-12-10",
+              "knownFor": ["Analytical Engine notes", "First published algorithm"],
+              "notableWorks": ["Notes on the Analytical Engine"],
+              "awards": [],
+              "summary": "English mathematician known for her work on Charles Babbage's Analytical Engine."
+            }
+            """;
+    private static final String INVALID_OUTPUT = VALID_OUTPUT.replace(
+            "[\"Notes on the Analytical Engine\"]",
+            "[\"a\", \"b\", \"c\", \"d\", \"e\", \"f\", \"g\"]");
+
+    @Param({"valid", "invalid"})
+    public String output;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StructuredOutputRegistry registry;
+    private String response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new StructuredOutputRegistry(objectMapper);
+        registry.register(OpenAiChatService.CELEBRITY_DETAILS, OpenAiChatService.CELEBRITY_DETAILS_SCHEMA);
+        response = "valid".equals(output) ? VALID_OUTPUT : INVALID_OUTPUT;
+    }
+
+    @Benchmark
+    public Object handWalkedSchema() throws JsonProcessingException {
+        JsonNode outputNode = objectMapper.readTree(response);
+        try {
+            validateCelebritySchema(outputNode);
+            return outputNode;
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object compiledSchema() {
+        try {
+            return registry.validate(OpenAiChatService.CELEBRITY_DETAILS, response);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    // The validation OpenAiChatService used before StructuredOutputRegistry, unchanged.
+
+    private void validateCelebritySchema(JsonNode outputNode) throws JsonProcessingException {
+        JsonNode schemaNode = objectMapper.readTree(OpenAiChatService.CELEBRITY_DETAILS_SCHEMA);
+
+        if (!outputNode.isObject()) {
+            throw new IllegalArgumentException("LLM output failed JSON schema validation: expected JSON object.");
+        }
+
+        JsonNode required = schemaNode.path("required");
+        if (required.isArray()) {
+            for (JsonNode requiredField : required) {
+                String fieldName = requiredField.asText();
+                if (!outputNode.has(fieldName) || outputNode.get(fieldName).isNull()) {
+                    throw new IllegalArgumentException("LLM output failed JSON schema validation: missing required field '" + fieldName + "'.");
+                }
+            }
+        }
+
+        JsonNode properties = schemaNode.path("properties");
+        if (!properties.isObject()) {
+            throw new IllegalArgumentException("LLM output failed JSON schema validation: invalid schema properties.");
+        }
+
+        if (schemaNode.path("additionalProperties").isBoolean() && !schemaNode.path("additionalProperties").asBoolean()) {
+            HashSet<String> allowedFields = new HashSet<>();
+            properties.fieldNames().forEachRemaining(allowedFields::add);
+            outputNode.fieldNames().forEachRemaining(field -> {
+                if (!allowedFields.contains(field)) {
+                    throw new IllegalArgumentException("LLM output failed JSON schema validation: additional field '" + field + "' is not allowed.");
+                }
+            });
+        }
+
+        validateCelebrityField(outputNode, properties, "name");
+        validateCelebrityField(outputNode, properties, "profession");
+        validateCelebrityField(outputNode, properties, "nationality");
+        validateCelebrityField(outputNode, properties, "birthDate");
+        validateCelebrityField(outputNode, properties, "knownFor");
+        validateCelebrityField(outputNode, properties, "notableWorks");
+        validateCelebrityField(outputNode, properties, "awards");
+        validateCelebrityField(outputNode, properties, "summary");
+    }
+
+    private void validateCelebrityField(JsonNode outputNode, JsonNode properties, String fieldName) {
+        JsonNode schemaField = properties.path(fieldName);
+        JsonNode valueNode = outputNode.path(fieldName);
+        String expectedType = schemaField.path("type").asText();
+
+        if ("string".equals(expectedType)) {
+            if (!valueNode.isTextual()) {
+                throw new IllegalArgumentException("LLM output failed JSON schema validation: field '" + fieldName + "' must be string.");
+            }
+            int minLength = schemaField.path("minLength").asInt(0);
+            if (valueNode.asText().trim().length() < minLength) {
+                throw new IllegalArgumentException("LLM output failed JSON schema validation: field '" + fieldName + "' is shorter than minLength.");
+            }
+            return;
+        }
+
+        if ("array".equals(expectedType)) {
+            if (!valueNode.isArray()) {
+                throw new IllegalArgumentException("LLM output failed JSON schema validation: field '" + fieldName + "' must be array.");
+            }
+            int size = valueNode.size();
+            int minItems = schemaField.path("minItems").asInt(0);
+            int maxItems = schemaField.path("maxItems").asInt(Integer.MAX_VALUE);
+            if (size < minItems || size > maxItems) {
+                throw new IllegalArgumentException("LLM output failed JSON schema validation: field '" + fieldName + "' item count out of range.");
+            }
+            for (JsonNode item : valueNode) {
+                if (!item.isTextual()) {
+                    throw new IllegalArgumentException("LLM output failed JSON schema validation: all items in '" + fieldName + "' must be strings.");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.openai.services;
+
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Database stand-in for benchmarks. Statements are prepared and bound as usual, and every update sleeps
+ * for a fixed latency (simulating the round trip to Postgres) instead of running. Anything beyond
+ * prepared-statement updates returns zero, false or null.
+ */
+class StubDataSource extends SingleConnectionDataSource {
+
+    private final AtomicLong updates;
+
+    StubDataSource(long latencyMillis) {
+        this(latencyMillis, new AtomicLong());
+    }
+
+    private StubDataSource(long latencyMillis, AtomicLong updates) {
+        super(connection(latencyMillis, updates), true);
+        this.updates = updates;
+    }
+
+    long updates() {
+        return updates.get();
+    }
+
+    private static Connection connection(long latencyMillis, AtomicLong updates) {
+        Object statement = stub(new Class<?>[]{PreparedStatement.class}, (proxy, method) -> {
+            if (!method.equals("executeUpdate")) {
+                return null;
+            }
+            updates.incrementAndGet();
+            if (latencyMillis > 0) {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while simulating database latency.", e);
+                }
+            }
+            return 1;
+        });
+        // PgVectorCodec unwraps the connection to PGConnection to register the binary vector type.
+        return (Connection) stub(new Class<?>[]{Connection.class, PGConnection.class}, (proxy, method) -> switch (method) {
+            case "prepareStatement" -> statement;
+            case "unwrap" -> proxy;
+            case "isWrapperFor" -> true;
+            default -> null;
+        });
+    }
+
+    /**
+     * A proxy for {@code types} that answers with {@code handler}, or with zero, false or null where it returns null.
+     */
+    private static Object stub(Class<?>[] types, BiFunction<Object, String, Object> handler) {
+        return Proxy.newProxyInstance(StubDataSource.class.getClassLoader(), types, (proxy, method, args) -> switch (method.getName()) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "Stub" + types[0].getSimpleName();
+            default -> {
+                Object result = handler.apply(proxy, method.getName());
+                Class<?> type = method.getReturnType();
+                if (result != null || !type.isPrimitive() || type == void.class) {
+                    yield result;
+                }
+                yield type == boolean.class ? false : type == long.class ? 0L : 0;
+            }
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.openai.services;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local embedding model for benchmarks. Every call sleeps for a fixed per-request latency
+ * (simulating the HTTP round trip) and returns deterministic pseudo-random vectors.
+ */
+class StubEmbeddingModel implements EmbeddingModel {
+
+    private final int dimensions;
+    private final long latencyMillis;
+    private final AtomicLong requests = new AtomicLong();
+
+    StubEmbeddingModel(int dimensions, long latencyMillis) {
+        this.dimensions = dimensions;
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        requests.incrementAndGet();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating embedding latency.", e);
+            }
+        }
+        List<String> texts = request.getInstructions();
+        List<Embedding> results = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            results.add(new Embedding(vectorFor(texts.get(i)), i));
+        }
+        return new EmbeddingResponse(results);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return call(new EmbeddingRequest(List.of(document.getText()), null)).getResults().get(0).getOutput();
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    float[] vectorFor(String text) {
+        SplittableRandom random = new SplittableRandom(text.hashCode());
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) (random.nextDouble() * 2 - 1);
+        }
+        return vector;
+    }
+}
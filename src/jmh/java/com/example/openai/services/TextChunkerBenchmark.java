@@ -0,0 +1,105 @@
+package com.example.openai.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunking throughput of {@link TextChunker} against the previous implementation, which collapsed
+ * whitespace with {@code replaceAll("\\s+", " ")} over the whole document and cut fixed windows.
+ * The generated text has multi-space runs, line breaks and blank lines like extracted PDF text.
+ * Run with the GC profiler to compare allocation per operation:
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=TextChunkerBenchmark -Pjmh.profilers=gc</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextChunkerBenchmark {
+
+    @Param({"2097152", "8388608"})
+    public int chars;
+
+    private final TextChunker textChunker = new TextChunker();
+    private String text;
+
+    @Setup(Level.Trial)
+    public void createText() {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder builder = new StringBuilder(chars + 32);
+        while (builder.length() < chars) {
+            int wordLength = 2 + random.nextInt(9);
+            for (int i = 0; i < wordLength; i++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+            int separator = random.nextInt(40);
+            builder.append(separator == 0 ? ".\n\n" : separator < 4 ? ". " : separator < 6 ? "  \n" : " ");
+        }
+        text = builder.toString();
+    }
+
+    @Benchmark
+    public void regexAndFixedWindows(Blackhole blackhole) {
+        for (String chunk : regexChunkText(text)) {
+            blackhole.consume(chunk);
+        }
+    }
+
+    @Benchmark
+    public void streamingCharSequence(Blackhole blackhole) {
+        Iterator<String> chunks = textChunker.chunks(text);
+        while (chunks.hasNext()) {
+            blackhole.consume(chunks.next());
+        }
+    }
+
+    @Benchmark
+    public void streamingReader(Blackhole blackhole) {
+        Iterator<String> chunks = textChunker.chunks(new StringReader(text));
+        while (chunks.hasNext()) {
+            blackhole.consume(chunks.next());
+        }
+    }
+
+    /**
+     * {@code TextChunker.chunkText} before the streaming chunker.
+     */
+    static List<String> regexChunkText(String text) {
+        String normalized = text.replaceAll("\\s+", " ").trim();
+        List<String> chunks = new ArrayList<>();
+        if (normalized.isBlank()) {
+            return chunks;
+        }
+
+        int start = 0;
+        while (start < normalized.length()) {
+            int end = Math.min(start + TextChunker.CHUNK_SIZE, normalized.length());
+            chunks.add(normalized.substring(start, end));
+            if (end == normalized.length()) {
+                break;
+            }
+            start = Math.max(0, end - TextChunker.CHUNK_OVERLAP);
+        }
+        return chunks;
+    }
+}
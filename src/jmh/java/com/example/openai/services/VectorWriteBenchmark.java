@@ -0,0 +1,126 @@
+package com.example.openai.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows/sec for writing 1536-dim chunks to Postgres: the old {@code batchUpdate} with
+ * {@code ?::vector} text literals vs. binary COPY. Needs the pgvector database from
+ * {@code docker/docker-compose.yml}; override with {@code -Dbench.jdbc.url=...}.
+ *
+ * <pre>./gradlew jmh -Pjmh.includes=VectorWriteBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VectorWriteBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS rag_chunks_bench (
+                id BIGSERIAL PRIMARY KEY,
+                source_path TEXT,
+                source TEXT NOT NULL,
+                chunk_index INTEGER NOT NULL,
+                content TEXT NOT NULL,
+                embedding vector(1536) NOT NULL
+            )
+            """;
+    private static final String INSERT_SQL = "INSERT INTO rag_chunks_bench (source_path, source, chunk_index, content, embedding) VALUES (?, ?, ?, ?, ?::vector)";
+    private static final String COPY_SQL = "COPY rag_chunks_bench (source_path, source, chunk_index, content, embedding) FROM STDIN (FORMAT BINARY)";
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private List<DocumentChunk> chunks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/vectordb"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"),
+                true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+
+        SplittableRandom random = new SplittableRandom(7);
+        chunks = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            float[] embedding = new float[1536];
+            for (int d = 0; d < embedding.length; d++) {
+                embedding[d] = (float) (random.nextDouble() * 2 - 1);
+            }
+            chunks.add(new DocumentChunk("/bench/doc.txt", "doc.txt", i,
+                    EmbeddingPipelineBenchmark.randomText(random, 1200), embedding));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE rag_chunks_bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS rag_chunks_bench");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void batchUpdateTextLiteral() {
+        jdbcTemplate.batchUpdate(
+                INSERT_SQL,
+                chunks,
+                200,
+                (ps, chunk) -> {
+                    ps.setString(1, chunk.sourcePath());
+                    ps.setString(2, chunk.source());
+                    ps.setInt(3, chunk.chunkIndex());
+                    ps.setString(4, chunk.text());
+                    ps.setString(5, PgVectorCodec.toLiteral(chunk.embedding()));
+                }
+        );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long binaryCopy() {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (BinaryCopyWriter copy = BinaryCopyWriter.open(connection, COPY_SQL)) {
+                for (DocumentChunk chunk : chunks) {
+                    copy.startRow(5)
+                            .writeText(chunk.sourcePath())
+                            .writeText(chunk.source())
+                            .writeInt(chunk.chunkIndex())
+                            .writeText(chunk.text())
+                            .writeVector(chunk.embedding());
+                }
+                return copy.finish();
+            }
+        });
+    }
+}
@@ -1,21 +1,47 @@
 package com.example.openai.controllers;
 
 import com.example.openai.models.CelebrityDetails;
+import com.example.openai.models.CompletionCacheStats;
+import com.example.openai.models.EmbeddingCacheStats;
+import com.example.openai.models.MediaJobStatus;
+import com.example.openai.models.MediaQueueStats;
 import com.example.openai.models.TemplateChatResponse;
+import com.example.openai.models.UpstreamModelStats;
+import com.example.openai.services.MediaJob;
+import com.example.openai.services.MediaJobService;
+import com.example.openai.services.MediaTransport;
 import com.example.openai.services.OpenAiChatService;
+import com.example.openai.services.UpstreamGovernor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 @RestController
 public class ChatController {
 
     @Autowired
     OpenAiChatService openAiChatService;
 
+    @Autowired
+    MediaJobService mediaJobService;
+
+    @Autowired
+    UpstreamGovernor upstreamGovernor;
+
     @PostMapping("/ask")
     public String chatComplete(@RequestParam(name = "request") String message) {
         return openAiChatService.chatCompletion(message);
@@ -33,6 +59,11 @@ public class ChatController {
         return openAiChatService.celebrityDetails(name);
     }
 
+    @GetMapping("/ask/cache/stats")
+    public CompletionCacheStats completionCacheStats() {
+        return openAiChatService.completionCacheStats();
+    }
+
     @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<String> chatCompleteStream(@RequestParam(name = "request") String message) {
         return openAiChatService.chatCompletionStream(message);
@@ -48,14 +79,115 @@ public class ChatController {
         return openAiChatService.saveDocumentWithEmbedding(message);
     }
 
+    @GetMapping("/embed/cache/stats")
+    public EmbeddingCacheStats embeddingCacheStats() {
+        return openAiChatService.embeddingCacheStats();
+    }
+
+    @GetMapping("/upstream/stats")
+    public List<UpstreamModelStats> upstreamStats() {
+        return upstreamGovernor.stats();
+    }
+
     @PostMapping("/image")
     public String image(@RequestParam(name = "prompt") String prompt) {
-        return openAiChatService.generateImage(prompt);
+        return generate(MediaJob.Kind.IMAGE, prompt, "Saved image to: ");
     }
 
     @PostMapping("/speech")
     public String speech(@RequestParam(name = "prompt") String prompt) {
-        return openAiChatService.generateSpeech(prompt);
+        return generate(MediaJob.Kind.SPEECH, prompt, "Saved audio to: ");
+    }
+
+    /**
+     * Relays synthesized audio to the client as the speech API produces it, and saves a copy under
+     * {@code generated-audio/} whose path is returned in the {@code X-Saved-Audio} header.
+     */
+    @PostMapping("/speech/stream")
+    public ResponseEntity<StreamingResponseBody> speechStream(@RequestParam(name = "prompt") String prompt) {
+        MediaTransport.Relay relay;
+        try {
+            relay = openAiChatService.openSpeechStream(prompt);
+        } catch (IllegalStateException e) {
+            return plainText(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        } catch (IOException e) {
+            return plainText(HttpStatus.BAD_GATEWAY, "Failed to generate audio: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return plainText(HttpStatus.SERVICE_UNAVAILABLE, "Failed to generate audio: " + e.getMessage());
+        }
+
+        String contentType = relay.contentType();
+        return ResponseEntity.ok()
+                .contentType(contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM)
+                .header("X-Saved-Audio", relay.copyTarget().toAbsolutePath().toString())
+                .body(relay::transferTo);
+    }
+
+    @PostMapping("/image/jobs")
+    public MediaJobStatus imageJob(@RequestParam(name = "prompt") String prompt) {
+        return mediaJobService.submit(MediaJob.Kind.IMAGE, prompt);
+    }
+
+    @PostMapping("/speech/jobs")
+    public MediaJobStatus speechJob(@RequestParam(name = "prompt") String prompt) {
+        return mediaJobService.submit(MediaJob.Kind.SPEECH, prompt);
+    }
+
+    @GetMapping("/media/jobs/stats")
+    public List<MediaQueueStats> mediaJobStats() {
+        return mediaJobService.stats();
+    }
+
+    @GetMapping("/media/jobs/{jobId}")
+    public MediaJobStatus mediaJob(@PathVariable("jobId") String jobId) {
+        return mediaJobService.status(jobId);
+    }
+
+    /**
+     * Serves the image or audio file of a completed media job.
+     */
+    @GetMapping("/media/jobs/{jobId}/result")
+    public ResponseEntity<StreamingResponseBody> mediaJobResult(@PathVariable("jobId") String jobId) {
+        Path artifact;
+        try {
+            artifact = mediaJobService.result(jobId);
+        } catch (IllegalArgumentException e) {
+            return plainText(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            return plainText(HttpStatus.CONFLICT, e.getMessage());
+        }
+
+        String contentType;
+        try {
+            contentType = Files.probeContentType(artifact);
+        } catch (IOException e) {
+            contentType = null;
+        }
+        return ResponseEntity.ok()
+                .contentType(contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM)
+                .header("Content-Disposition", "inline; filename=\"" + artifact.getFileName() + "\"")
+                .body(out -> Files.copy(artifact, out));
+    }
+
+    /**
+     * Runs a generation through its media job lane and waits for the saved file.
+     */
+    private String generate(MediaJob.Kind kind, String prompt, String savedTo) {
+        try {
+            return savedTo + mediaJobService.generate(kind, prompt).toAbsolutePath();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Interrupted while waiting for the generation.";
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> plainText(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
     }
 
 
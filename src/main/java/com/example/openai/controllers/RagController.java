@@ -1,12 +1,25 @@
 package com.example.openai.controllers;
 
 import com.example.openai.models.RagAnswerResponse;
-import com.example.openai.models.RagLoadResponse;
+import com.example.openai.models.RagBatchAskRequest;
+import com.example.openai.models.RagBatchAskResponse;
+import com.example.openai.models.RagCorpusStats;
+import com.example.openai.models.RagIngestJobStatus;
+import com.example.openai.services.IngestionJobService;
 import com.example.openai.services.RagService;
+import com.example.openai.services.SearchProfile;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
 
 @RestController
 public class RagController {
@@ -14,14 +27,63 @@ public class RagController {
     @Autowired
     private RagService ragService;
 
+    @Autowired
+    private IngestionJobService ingestionJobService;
+
     @PostMapping("/rag/load")
-    public RagLoadResponse load(@RequestParam(name = "path") String path) {
-        return ragService.loadDocuments(path);
+    public RagIngestJobStatus load(@RequestParam(name = "path") String path,
+                                   @RequestParam(name = "collection", defaultValue = "default") String collection) {
+        return ingestionJobService.submit(path, collection);
+    }
+
+    @GetMapping("/rag/jobs/{jobId}")
+    public RagIngestJobStatus job(@PathVariable("jobId") String jobId) {
+        return ingestionJobService.status(jobId);
+    }
+
+    @PostMapping("/rag/jobs/{jobId}/cancel")
+    public RagIngestJobStatus cancelJob(@PathVariable("jobId") String jobId) {
+        return ingestionJobService.cancel(jobId);
+    }
+
+    @PostMapping("/rag/jobs/{jobId}/resume")
+    public RagIngestJobStatus resumeJob(@PathVariable("jobId") String jobId) {
+        return ingestionJobService.resume(jobId);
     }
 
     @PostMapping("/rag/ask")
     public RagAnswerResponse ask(@RequestParam(name = "question") String question,
-                                 @RequestParam(name = "topK", defaultValue = "4") int topK) {
-        return ragService.ask(question, topK);
+                                 @RequestParam(name = "topK", defaultValue = "4") int topK,
+                                 @RequestParam(name = "profile", defaultValue = "balanced") String profile,
+                                 @RequestParam(name = "collection", defaultValue = "default") String collection) {
+        return ragService.ask(collection, question, topK, SearchProfile.fromParameter(profile));
+    }
+
+    @PostMapping("/rag/ask/batch")
+    public RagBatchAskResponse askBatch(@RequestBody RagBatchAskRequest request) {
+        return ragService.askBatch(
+                request.getCollection(),
+                request.getQuestions(),
+                request.getTopK(),
+                SearchProfile.fromParameter(request.getProfile())
+        );
+    }
+
+    @PostMapping(value = "/rag/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> askStream(@RequestParam(name = "question") String question,
+                                                   @RequestParam(name = "topK", defaultValue = "4") int topK,
+                                                   @RequestParam(name = "profile", defaultValue = "balanced") String profile,
+                                                   @RequestParam(name = "collection", defaultValue = "default") String collection) {
+        return ragService.askStream(collection, question, topK, SearchProfile.fromParameter(profile));
+    }
+
+    @GetMapping("/rag/stats")
+    public RagCorpusStats stats(@RequestParam(name = "collection", defaultValue = "default") String collection) {
+        return ragService.stats(collection);
+    }
+
+    @GetMapping("/rag/collections")
+    public List<String> collections() {
+        return ragService.collections();
     }
 }
@@ -0,0 +1,102 @@
+package com.example.openai.models;
+
+public class CompletionCacheStats {
+
+    private String model;
+    private long hits;
+    private long coalesced;
+    private long misses;
+    private long expirations;
+    private long evictions;
+    private int entries;
+    private int maxEntries;
+    private long ttlSeconds;
+
+    public CompletionCacheStats() {
+    }
+
+    public CompletionCacheStats(String model, long hits, long coalesced, long misses, long expirations, long evictions,
+                                int entries, int maxEntries, long ttlSeconds) {
+        this.model = model;
+        this.hits = hits;
+        this.coalesced = coalesced;
+        this.misses = misses;
+        this.expirations = expirations;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.maxEntries = maxEntries;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public void setCoalesced(long coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public void setExpirations(long expirations) {
+        this.expirations = expirations;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public void setEntries(int entries) {
+        this.entries = entries;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
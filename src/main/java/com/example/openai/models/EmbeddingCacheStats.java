@@ -0,0 +1,102 @@
+package com.example.openai.models;
+
+public class EmbeddingCacheStats {
+
+    private String model;
+    private long hits;
+    private long persistentHits;
+    private long misses;
+    private long evictions;
+    private int entries;
+    private long bytes;
+    private long maxBytes;
+    private boolean persistent;
+
+    public EmbeddingCacheStats() {
+    }
+
+    public EmbeddingCacheStats(String model, long hits, long persistentHits, long misses, long evictions,
+                               int entries, long bytes, long maxBytes, boolean persistent) {
+        this.model = model;
+        this.hits = hits;
+        this.persistentHits = persistentHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.bytes = bytes;
+        this.maxBytes = maxBytes;
+        this.persistent = persistent;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getPersistentHits() {
+        return persistentHits;
+    }
+
+    public void setPersistentHits(long persistentHits) {
+        this.persistentHits = persistentHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public void setEntries(int entries) {
+        this.entries = entries;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    public void setPersistent(boolean persistent) {
+        this.persistent = persistent;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.openai.models;
+
+public class MediaQueueStats {
+
+    private String kind;
+    private int concurrency;
+    private int queueCapacity;
+    private int queueDepth;
+    private int running;
+    private long submitted;
+    private long rejected;
+    private long completed;
+    private long failed;
+    private long averageWaitMillis;
+    private long maxWaitMillis;
+
+    public MediaQueueStats() {
+    }
+
+    public MediaQueueStats(String kind,
+                           int concurrency,
+                           int queueCapacity,
+                           int queueDepth,
+                           int running,
+                           long submitted,
+                           long rejected,
+                           long completed,
+                           long failed,
+                           long averageWaitMillis,
+                           long maxWaitMillis) {
+        this.kind = kind;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.queueDepth = queueDepth;
+        this.running = running;
+        this.submitted = submitted;
+        this.rejected = rejected;
+        this.completed = completed;
+        this.failed = failed;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public void setRunning(int running) {
+        this.running = running;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(long submitted) {
+        this.submitted = submitted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public void setAverageWaitMillis(long averageWaitMillis) {
+        this.averageWaitMillis = averageWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+}
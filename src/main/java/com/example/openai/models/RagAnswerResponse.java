@@ -8,6 +8,8 @@ public class RagAnswerResponse {
     private String answer;
     private List<String> sources = new ArrayList<>();
     private int matchedChunks;
+    private int contextTokens;
+    private int savedContextTokens;
 
     public RagAnswerResponse() {
     }
@@ -41,4 +43,20 @@ public class RagAnswerResponse {
     public void setMatchedChunks(int matchedChunks) {
         this.matchedChunks = matchedChunks;
     }
+
+    public int getContextTokens() {
+        return contextTokens;
+    }
+
+    public void setContextTokens(int contextTokens) {
+        this.contextTokens = contextTokens;
+    }
+
+    public int getSavedContextTokens() {
+        return savedContextTokens;
+    }
+
+    public void setSavedContextTokens(int savedContextTokens) {
+        this.savedContextTokens = savedContextTokens;
+    }
 }
@@ -0,0 +1,119 @@
+package com.example.openai.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RagBatchAnswer {
+
+    private int index;
+    private String question;
+    private String answer;
+    private List<String> sources = new ArrayList<>();
+    private int matchedChunks;
+    private int contextTokens;
+    private int savedContextTokens;
+    private boolean cached;
+    private String error;
+    private long retrievalMillis;
+    private long answerMillis;
+    private long totalMillis;
+
+    public RagBatchAnswer() {
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getQuestion() {
+        return question;
+    }
+
+    public void setQuestion(String question) {
+        this.question = question;
+    }
+
+    public String getAnswer() {
+        return answer;
+    }
+
+    public void setAnswer(String answer) {
+        this.answer = answer;
+    }
+
+    public List<String> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<String> sources) {
+        this.sources = sources;
+    }
+
+    public int getMatchedChunks() {
+        return matchedChunks;
+    }
+
+    public void setMatchedChunks(int matchedChunks) {
+        this.matchedChunks = matchedChunks;
+    }
+
+    public int getContextTokens() {
+        return contextTokens;
+    }
+
+    public void setContextTokens(int contextTokens) {
+        this.contextTokens = contextTokens;
+    }
+
+    public int getSavedContextTokens() {
+        return savedContextTokens;
+    }
+
+    public void setSavedContextTokens(int savedContextTokens) {
+        this.savedContextTokens = savedContextTokens;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getRetrievalMillis() {
+        return retrievalMillis;
+    }
+
+    public void setRetrievalMillis(long retrievalMillis) {
+        this.retrievalMillis = retrievalMillis;
+    }
+
+    public long getAnswerMillis() {
+        return answerMillis;
+    }
+
+    public void setAnswerMillis(long answerMillis) {
+        this.answerMillis = answerMillis;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(long totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.openai.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RagBatchAskRequest {
+
+    private List<String> questions = new ArrayList<>();
+    private int topK = 4;
+    private String profile = "balanced";
+    private String collection = "default";
+
+    public RagBatchAskRequest() {
+    }
+
+    public List<String> getQuestions() {
+        return questions;
+    }
+
+    public void setQuestions(List<String> questions) {
+        this.questions = questions;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public void setProfile(String profile) {
+        this.profile = profile;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.openai.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RagBatchAskResponse {
+
+    private String collection;
+    private int questionCount;
+    private int failedCount;
+    private int cachedCount;
+    private long embeddingMillis;
+    private long totalMillis;
+    private List<RagBatchAnswer> results = new ArrayList<>();
+
+    public RagBatchAskResponse() {
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    public void setQuestionCount(int questionCount) {
+        this.questionCount = questionCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public int getCachedCount() {
+        return cachedCount;
+    }
+
+    public void setCachedCount(int cachedCount) {
+        this.cachedCount = cachedCount;
+    }
+
+    public long getEmbeddingMillis() {
+        return embeddingMillis;
+    }
+
+    public void setEmbeddingMillis(long embeddingMillis) {
+        this.embeddingMillis = embeddingMillis;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(long totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public List<RagBatchAnswer> getResults() {
+        return results;
+    }
+
+    public void setResults(List<RagBatchAnswer> results) {
+        this.results = results;
+    }
+}
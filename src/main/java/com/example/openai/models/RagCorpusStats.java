@@ -0,0 +1,91 @@
+package com.example.openai.models;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RagCorpusStats {
+
+    private String collection;
+    private long activeGeneration;
+    private Instant lastLoadedAt;
+    private int sourceCount;
+    private long chunkCount;
+    private long totalChars;
+    private List<RagSourceStats> sources = new ArrayList<>();
+
+    public RagCorpusStats() {
+    }
+
+    public RagCorpusStats(String collection,
+                          long activeGeneration,
+                          Instant lastLoadedAt,
+                          int sourceCount,
+                          long chunkCount,
+                          long totalChars,
+                          List<RagSourceStats> sources) {
+        this.collection = collection;
+        this.activeGeneration = activeGeneration;
+        this.lastLoadedAt = lastLoadedAt;
+        this.sourceCount = sourceCount;
+        this.chunkCount = chunkCount;
+        this.totalChars = totalChars;
+        this.sources = sources;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public long getActiveGeneration() {
+        return activeGeneration;
+    }
+
+    public void setActiveGeneration(long activeGeneration) {
+        this.activeGeneration = activeGeneration;
+    }
+
+    public Instant getLastLoadedAt() {
+        return lastLoadedAt;
+    }
+
+    public void setLastLoadedAt(Instant lastLoadedAt) {
+        this.lastLoadedAt = lastLoadedAt;
+    }
+
+    public int getSourceCount() {
+        return sourceCount;
+    }
+
+    public void setSourceCount(int sourceCount) {
+        this.sourceCount = sourceCount;
+    }
+
+    public long getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(long chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public long getTotalChars() {
+        return totalChars;
+    }
+
+    public void setTotalChars(long totalChars) {
+        this.totalChars = totalChars;
+    }
+
+    public List<RagSourceStats> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<RagSourceStats> sources) {
+        this.sources = sources;
+    }
+}
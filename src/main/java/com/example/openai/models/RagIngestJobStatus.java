@@ -0,0 +1,172 @@
+package com.example.openai.models;
+
+import java.time.Instant;
+
+public class RagIngestJobStatus {
+
+    private String jobId;
+    private String collection;
+    private String path;
+    private String status;
+    private boolean resumable;
+    private int filesSeen;
+    private int changedFiles;
+    private int unchangedFiles;
+    private int resumedFiles;
+    private long chunksEmbedded;
+    private long rowsWritten;
+    private double rowsPerSecond;
+    private long elapsedMillis;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+    private RagLoadResponse result;
+
+    public RagIngestJobStatus() {
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public boolean isResumable() {
+        return resumable;
+    }
+
+    public void setResumable(boolean resumable) {
+        this.resumable = resumable;
+    }
+
+    public int getFilesSeen() {
+        return filesSeen;
+    }
+
+    public void setFilesSeen(int filesSeen) {
+        this.filesSeen = filesSeen;
+    }
+
+    public int getChangedFiles() {
+        return changedFiles;
+    }
+
+    public void setChangedFiles(int changedFiles) {
+        this.changedFiles = changedFiles;
+    }
+
+    public int getUnchangedFiles() {
+        return unchangedFiles;
+    }
+
+    public void setUnchangedFiles(int unchangedFiles) {
+        this.unchangedFiles = unchangedFiles;
+    }
+
+    public int getResumedFiles() {
+        return resumedFiles;
+    }
+
+    public void setResumedFiles(int resumedFiles) {
+        this.resumedFiles = resumedFiles;
+    }
+
+    public long getChunksEmbedded() {
+        return chunksEmbedded;
+    }
+
+    public void setChunksEmbedded(long chunksEmbedded) {
+        this.chunksEmbedded = chunksEmbedded;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public RagLoadResponse getResult() {
+        return result;
+    }
+
+    public void setResult(RagLoadResponse result) {
+        this.result = result;
+    }
+}
@@ -8,6 +8,10 @@ public class RagLoadResponse {
     private int loadedFiles;
     private int loadedChunks;
     private List<String> sources = new ArrayList<>();
+    private int changedFiles;
+    private int unchangedFiles;
+    private int removedFiles;
+    private int embeddedChunks;
 
     public RagLoadResponse() {
     }
@@ -18,6 +22,15 @@ public class RagLoadResponse {
         this.sources = sources;
     }
 
+    public RagLoadResponse(int loadedFiles, int loadedChunks, List<String> sources,
+                           int changedFiles, int unchangedFiles, int removedFiles, int embeddedChunks) {
+        this(loadedFiles, loadedChunks, sources);
+        this.changedFiles = changedFiles;
+        this.unchangedFiles = unchangedFiles;
+        this.removedFiles = removedFiles;
+        this.embeddedChunks = embeddedChunks;
+    }
+
     public int getLoadedFiles() {
         return loadedFiles;
     }
@@ -41,4 +54,36 @@ public class RagLoadResponse {
     public void setSources(List<String> sources) {
         this.sources = sources;
     }
+
+    public int getChangedFiles() {
+        return changedFiles;
+    }
+
+    public void setChangedFiles(int changedFiles) {
+        this.changedFiles = changedFiles;
+    }
+
+    public int getUnchangedFiles() {
+        return unchangedFiles;
+    }
+
+    public void setUnchangedFiles(int unchangedFiles) {
+        this.unchangedFiles = unchangedFiles;
+    }
+
+    public int getRemovedFiles() {
+        return removedFiles;
+    }
+
+    public void setRemovedFiles(int removedFiles) {
+        this.removedFiles = removedFiles;
+    }
+
+    public int getEmbeddedChunks() {
+        return embeddedChunks;
+    }
+
+    public void setEmbeddedChunks(int embeddedChunks) {
+        this.embeddedChunks = embeddedChunks;
+    }
 }
@@ -0,0 +1,57 @@
+package com.example.openai.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RagRetrievalEvent {
+
+    private List<String> sources = new ArrayList<>();
+    private List<RagRetrievedChunk> chunks = new ArrayList<>();
+    private boolean cached;
+    private long retrievalMillis;
+
+    public RagRetrievalEvent() {
+    }
+
+    public RagRetrievalEvent(List<String> sources,
+                             List<RagRetrievedChunk> chunks,
+                             boolean cached,
+                             long retrievalMillis) {
+        this.sources = sources;
+        this.chunks = chunks;
+        this.cached = cached;
+        this.retrievalMillis = retrievalMillis;
+    }
+
+    public List<String> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<String> sources) {
+        this.sources = sources;
+    }
+
+    public List<RagRetrievedChunk> getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(List<RagRetrievedChunk> chunks) {
+        this.chunks = chunks;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public long getRetrievalMillis() {
+        return retrievalMillis;
+    }
+
+    public void setRetrievalMillis(long retrievalMillis) {
+        this.retrievalMillis = retrievalMillis;
+    }
+}
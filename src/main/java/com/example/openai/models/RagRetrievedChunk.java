@@ -0,0 +1,31 @@
+package com.example.openai.models;
+
+public class RagRetrievedChunk {
+
+    private String source;
+    private int chunkIndex;
+
+    public RagRetrievedChunk() {
+    }
+
+    public RagRetrievedChunk(String source, int chunkIndex) {
+        this.source = source;
+        this.chunkIndex = chunkIndex;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public void setChunkIndex(int chunkIndex) {
+        this.chunkIndex = chunkIndex;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.openai.models;
+
+public class RagSourceStats {
+
+    private String sourcePath;
+    private String source;
+    private int chunkCount;
+    private long charCount;
+    private long firstChunkId;
+    private long lastChunkId;
+
+    public RagSourceStats() {
+    }
+
+    public RagSourceStats(String sourcePath,
+                          String source,
+                          int chunkCount,
+                          long charCount,
+                          long firstChunkId,
+                          long lastChunkId) {
+        this.sourcePath = sourcePath;
+        this.source = source;
+        this.chunkCount = chunkCount;
+        this.charCount = charCount;
+        this.firstChunkId = firstChunkId;
+        this.lastChunkId = lastChunkId;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public void setSourcePath(String sourcePath) {
+        this.sourcePath = sourcePath;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public long getCharCount() {
+        return charCount;
+    }
+
+    public void setCharCount(long charCount) {
+        this.charCount = charCount;
+    }
+
+    public long getFirstChunkId() {
+        return firstChunkId;
+    }
+
+    public void setFirstChunkId(long firstChunkId) {
+        this.firstChunkId = firstChunkId;
+    }
+
+    public long getLastChunkId() {
+        return lastChunkId;
+    }
+
+    public void setLastChunkId(long lastChunkId) {
+        this.lastChunkId = lastChunkId;
+    }
+}
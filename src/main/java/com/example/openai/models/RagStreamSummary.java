@@ -0,0 +1,87 @@
+package com.example.openai.models;
+
+public class RagStreamSummary {
+
+    private int matchedChunks;
+    private int answerChars;
+    private int contextTokens;
+    private int savedContextTokens;
+    private boolean cached;
+    private long retrievalMillis;
+    private long totalMillis;
+
+    public RagStreamSummary() {
+    }
+
+    public RagStreamSummary(int matchedChunks,
+                            int answerChars,
+                            int contextTokens,
+                            int savedContextTokens,
+                            boolean cached,
+                            long retrievalMillis,
+                            long totalMillis) {
+        this.matchedChunks = matchedChunks;
+        this.answerChars = answerChars;
+        this.contextTokens = contextTokens;
+        this.savedContextTokens = savedContextTokens;
+        this.cached = cached;
+        this.retrievalMillis = retrievalMillis;
+        this.totalMillis = totalMillis;
+    }
+
+    public int getMatchedChunks() {
+        return matchedChunks;
+    }
+
+    public void setMatchedChunks(int matchedChunks) {
+        this.matchedChunks = matchedChunks;
+    }
+
+    public int getAnswerChars() {
+        return answerChars;
+    }
+
+    public void setAnswerChars(int answerChars) {
+        this.answerChars = answerChars;
+    }
+
+    public int getContextTokens() {
+        return contextTokens;
+    }
+
+    public void setContextTokens(int contextTokens) {
+        this.contextTokens = contextTokens;
+    }
+
+    public int getSavedContextTokens() {
+        return savedContextTokens;
+    }
+
+    public void setSavedContextTokens(int savedContextTokens) {
+        this.savedContextTokens = savedContextTokens;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public long getRetrievalMillis() {
+        return retrievalMillis;
+    }
+
+    public void setRetrievalMillis(long retrievalMillis) {
+        this.retrievalMillis = retrievalMillis;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(long totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.openai.models;
+
+public class UpstreamModelStats {
+
+    private String model;
+    private long requestsPerMinute;
+    private long tokensPerMinute;
+    private int concurrencyLimit;
+    private int inFlight;
+    private int queuedInteractive;
+    private int queuedBulk;
+    private long admitted;
+    private long throttled;
+    private long retried;
+    private long failed;
+    private long averageWaitMillis;
+    private long pausedForMillis;
+
+    public UpstreamModelStats() {
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public long getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    public void setRequestsPerMinute(long requestsPerMinute) {
+        this.requestsPerMinute = requestsPerMinute;
+    }
+
+    public long getTokensPerMinute() {
+        return tokensPerMinute;
+    }
+
+    public void setTokensPerMinute(long tokensPerMinute) {
+        this.tokensPerMinute = tokensPerMinute;
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(int concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public int getQueuedInteractive() {
+        return queuedInteractive;
+    }
+
+    public void setQueuedInteractive(int queuedInteractive) {
+        this.queuedInteractive = queuedInteractive;
+    }
+
+    public int getQueuedBulk() {
+        return queuedBulk;
+    }
+
+    public void setQueuedBulk(int queuedBulk) {
+        this.queuedBulk = queuedBulk;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public void setAdmitted(long admitted) {
+        this.admitted = admitted;
+    }
+
+    public long getThrottled() {
+        return throttled;
+    }
+
+    public void setThrottled(long throttled) {
+        this.throttled = throttled;
+    }
+
+    public long getRetried() {
+        return retried;
+    }
+
+    public void setRetried(long retried) {
+        this.retried = retried;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public void setAverageWaitMillis(long averageWaitMillis) {
+        this.averageWaitMillis = averageWaitMillis;
+    }
+
+    public long getPausedForMillis() {
+        return pausedForMillis;
+    }
+
+    public void setPausedForMillis(long pausedForMillis) {
+        this.pausedForMillis = pausedForMillis;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.openai.services;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Streams rows into {@code COPY ... FROM STDIN (FORMAT BINARY)} through the PgJDBC {@code CopyManager}.
+ * Rows are encoded into a reusable buffer that is handed to the server whenever it fills up.
+ */
+final class BinaryCopyWriter implements AutoCloseable {
+
+    private static final byte[] HEADER = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final CopyIn copyIn;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long rows;
+
+    private BinaryCopyWriter(CopyIn copyIn) {
+        this.copyIn = copyIn;
+        buffer.put(HEADER);
+    }
+
+    static BinaryCopyWriter open(Connection connection, String copySql) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+        return new BinaryCopyWriter(copyIn);
+    }
+
+    BinaryCopyWriter startRow(int fieldCount) throws SQLException {
+        ensureCapacity(2);
+        buffer.putShort((short) fieldCount);
+        rows++;
+        return this;
+    }
+
+    BinaryCopyWriter writeText(String value) throws SQLException {
+        if (value == null) {
+            return writeNull();
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(4 + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+
+    BinaryCopyWriter writeInt(int value) throws SQLException {
+        ensureCapacity(8);
+        buffer.putInt(4);
+        buffer.putInt(value);
+        return this;
+    }
+
+    BinaryCopyWriter writeLong(long value) throws SQLException {
+        ensureCapacity(12);
+        buffer.putInt(8);
+        buffer.putLong(value);
+        return this;
+    }
+
+    BinaryCopyWriter writeVector(float[] vector) throws SQLException {
+        int length = PgVectorCodec.encodedLength(vector);
+        ensureCapacity(4 + length);
+        buffer.putInt(length);
+        PgVectorCodec.encode(vector, buffer);
+        return this;
+    }
+
+    BinaryCopyWriter writeNull() throws SQLException {
+        ensureCapacity(4);
+        buffer.putInt(-1);
+        return this;
+    }
+
+    /**
+     * Sends the trailer and completes the COPY. Returns the number of rows written.
+     */
+    long finish() throws SQLException {
+        ensureCapacity(2);
+        buffer.putShort((short) -1);
+        flushBuffer();
+        copyIn.endCopy();
+        return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+
+    private void ensureCapacity(int bytes) throws SQLException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        flushBuffer();
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(bytes);
+        }
+    }
+
+    private void flushBuffer() throws SQLException {
+        if (buffer.position() > 0) {
+            copyIn.writeToCopy(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.openai.services;
+
+import com.example.openai.models.CompletionCacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches chat completions in front of the model, keyed by a SHA-256 of (model, options, system prompt,
+ * user prompt), so an identical request within {@code chat.completion-cache.ttl-seconds} gets the
+ * earlier completion back without an API call. Entries live in an LRU map bounded by
+ * {@code chat.completion-cache.max-entries}.
+ * <p>
+ * Concurrent identical requests are coalesced: the first one calls the model and the others wait for
+ * its result, so N simultaneous misses cost one upstream call. A failed call is shared with the waiting
+ * requests and is not cached; neither is empty output.
+ */
+@Component
+public class CompletionCache {
+
+    private final String modelName;
+    private final String temperature;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<CacheKey, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CompletionCache(@Value("${spring.ai.openai.chat.options.model:gpt-4o-mini}") String modelName,
+                           @Value("${spring.ai.openai.chat.options.temperature:}") String temperature,
+                           @Value("${chat.completion-cache.max-entries:1024}") int maxEntries,
+                           @Value("${chat.completion-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.modelName = modelName;
+        this.temperature = temperature;
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ttlNanos = Math.max(0, ttlSeconds) * 1_000_000_000L;
+    }
+
+    /**
+     * Returns the cached completion of ({@code options}, {@code system}, {@code user}), or the result of
+     * {@code call} for it. {@code options} names whatever besides the prompts shapes the output, such as
+     * the structured output a caller expects. {@code call} may validate its output and throw to keep it
+     * out of the cache.
+     */
+    public String complete(String options, String system, String user, Supplier<String> call) {
+        CacheKey key = keyOf(options, system, user);
+        String cached = get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        CompletableFuture<String> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            return await(leader);
+        }
+
+        try {
+            // An identical request may have finished between the lookup and taking the flight.
+            String completion = get(key);
+            if (completion == null) {
+                misses.increment();
+                completion = call.get();
+                if (completion != null && !completion.isBlank()) {
+                    put(key, completion);
+                }
+            }
+            flight.complete(completion);
+            return completion;
+        } catch (Throwable e) {
+            // Errors too: coalesced requests are waiting on this flight and must not wait forever.
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public CompletionCacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CompletionCacheStats(
+                modelName,
+                hits.sum(),
+                coalesced.sum(),
+                misses.sum(),
+                expirations.sum(),
+                evictions.sum(),
+                size,
+                maxEntries,
+                ttlNanos / 1_000_000_000L
+        );
+    }
+
+    private String get(CacheKey key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAtNanos() >= 0) {
+                entries.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry.completion();
+        }
+    }
+
+    private void put(CacheKey key, String completion) {
+        if (maxEntries == 0 || ttlNanos == 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(completion, System.nanoTime() + ttlNanos));
+            var eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private static String await(CompletableFuture<String> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Chat completion failed.", e.getCause());
+        }
+    }
+
+    private CacheKey keyOf(String options, String system, String user) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        for (String part : new String[] {modelName, temperature, options, system}) {
+            digest.update((part == null ? "" : part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest((user == null ? "" : user).getBytes(StandardCharsets.UTF_8)));
+        return new CacheKey(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    private record Entry(String completion, long expiresAtNanos) {
+    }
+
+    /**
+     * SHA-256 of (model, temperature, options, system prompt, user prompt) held as four longs.
+     */
+    private record CacheKey(long h0, long h1, long h2, long h3) {
+    }
+}
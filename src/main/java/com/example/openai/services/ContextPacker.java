@@ -0,0 +1,247 @@
+package com.example.openai.services;
+
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns retrieved chunks into the context block of a RAG prompt. Chunks that are adjacent in the same
+ * source are merged into one passage with the {@link TextChunker} overlap removed, passages that are
+ * near-duplicates of a better-ranked one are dropped, and passages are added in rank order until
+ * {@code rag.context.max-tokens} is reached. Tokens are counted locally with JTokkit.
+ */
+@Component
+public class ContextPacker {
+
+    private static final int MIN_OVERLAP_CHARS = 16;
+    private static final int MAX_OVERLAP_CHARS = 400;
+    private static final int SHINGLE_WORDS = 5;
+    private static final int MIN_TRUNCATED_TOKENS = 64;
+
+    private final TokenCountEstimator tokenCounter = new JTokkitTokenCountEstimator();
+    private final int maxTokens;
+    private final double duplicateThreshold;
+
+    public ContextPacker(@Value("${rag.context.max-tokens:3000}") int maxTokens,
+                         @Value("${rag.context.near-duplicate-threshold:0.8}") double duplicateThreshold) {
+        this.maxTokens = Math.max(1, maxTokens);
+        this.duplicateThreshold = duplicateThreshold;
+    }
+
+    /**
+     * @param chunks retrieved chunks, best match first
+     */
+    public PackedContext pack(List<DocumentChunk> chunks) {
+        int unpackedTokens = tokenCounter.estimate(format(chunks.stream().map(Passage::of).toList()));
+
+        List<Passage> passages = dropNearDuplicates(merge(chunks));
+        StringBuilder context = new StringBuilder();
+        int usedTokens = 0;
+        int packedChunks = 0;
+        for (Passage passage : passages) {
+            String block = passage.render();
+            int blockTokens = tokenCounter.estimate(block);
+            if (usedTokens + blockTokens > maxTokens) {
+                int remaining = maxTokens - usedTokens;
+                if (remaining >= MIN_TRUNCATED_TOKENS) {
+                    block = truncate(block, remaining);
+                    blockTokens = tokenCounter.estimate(block);
+                } else {
+                    continue;
+                }
+            }
+            context.append(block);
+            usedTokens += blockTokens;
+            packedChunks += passage.chunkCount;
+        }
+
+        return new PackedContext(context.toString(), usedTokens, Math.max(0, unpackedTokens - usedTokens), packedChunks);
+    }
+
+    /**
+     * Joins chunks with consecutive indexes from the same source file. A passage ranks as well as its best chunk.
+     */
+    private List<Passage> merge(List<DocumentChunk> chunks) {
+        Map<String, List<Ranked>> bySource = new LinkedHashMap<>();
+        for (int rank = 0; rank < chunks.size(); rank++) {
+            DocumentChunk chunk = chunks.get(rank);
+            // Keyed on the full path: files with the same name in different folders are different sources.
+            String key = chunk.sourcePath() != null ? chunk.sourcePath() : chunk.source();
+            bySource.computeIfAbsent(key, source -> new ArrayList<>()).add(new Ranked(chunk, rank));
+        }
+
+        List<Passage> passages = new ArrayList<>();
+        for (List<Ranked> sourceChunks : bySource.values()) {
+            sourceChunks.sort(Comparator.comparingInt(ranked -> ranked.chunk().chunkIndex()));
+            Passage current = null;
+            for (Ranked ranked : sourceChunks) {
+                DocumentChunk chunk = ranked.chunk();
+                if (current != null && chunk.chunkIndex() <= current.lastIndex + 1) {
+                    if (chunk.chunkIndex() > current.lastIndex) {
+                        current.append(chunk.text(), chunk.chunkIndex(), ranked.rank());
+                    }
+                    continue;
+                }
+                current = new Passage(chunk.source(), chunk.chunkIndex(), chunk.text(), ranked.rank());
+                passages.add(current);
+            }
+        }
+        passages.sort(Comparator.comparingInt(passage -> passage.rank));
+        return passages;
+    }
+
+    private List<Passage> dropNearDuplicates(List<Passage> passages) {
+        List<Passage> kept = new ArrayList<>(passages.size());
+        List<Set<Long>> keptShingles = new ArrayList<>(passages.size());
+        for (Passage passage : passages) {
+            Set<Long> shingles = shingles(passage.text.toString());
+            boolean duplicate = false;
+            for (Set<Long> other : keptShingles) {
+                if (containment(shingles, other) >= duplicateThreshold) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                kept.add(passage);
+                keptShingles.add(shingles);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Share of {@code candidate}'s shingles already present in {@code kept}; 1.0 when the candidate adds nothing new.
+     */
+    private static double containment(Set<Long> candidate, Set<Long> kept) {
+        if (candidate.isEmpty()) {
+            return 1.0;
+        }
+        int shared = 0;
+        for (Long shingle : candidate) {
+            if (kept.contains(shingle)) {
+                shared++;
+            }
+        }
+        return shared / (double) candidate.size();
+    }
+
+    private static Set<Long> shingles(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("\\W+");
+        Set<Long> shingles = new HashSet<>();
+        for (int i = 0; i + SHINGLE_WORDS <= words.length; i++) {
+            long hash = 1125899906842597L;
+            for (int j = i; j < i + SHINGLE_WORDS; j++) {
+                hash = 31 * hash + words[j].hashCode();
+            }
+            shingles.add(hash);
+        }
+        if (shingles.isEmpty() && words.length > 0) {
+            shingles.add((long) String.join(" ", words).hashCode());
+        }
+        return shingles;
+    }
+
+    /**
+     * Longest suffix of {@code previous} that starts {@code next}, i.e. the chunker's overlap.
+     */
+    static int overlap(CharSequence previous, String next) {
+        int max = Math.min(MAX_OVERLAP_CHARS, Math.min(previous.length(), next.length()));
+        for (int length = max; length >= MIN_OVERLAP_CHARS; length--) {
+            int start = previous.length() - length;
+            boolean matches = true;
+            for (int i = 0; i < length; i++) {
+                if (previous.charAt(start + i) != next.charAt(i)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    private String truncate(String block, int tokens) {
+        int low = 0;
+        int high = block.length();
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (tokenCounter.estimate(block.substring(0, middle) + "\n\n") <= tokens) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int end = block.lastIndexOf(' ', low);
+        return block.substring(0, end > 0 ? end : low) + "\n\n";
+    }
+
+    private static String format(List<Passage> passages) {
+        StringBuilder builder = new StringBuilder();
+        for (Passage passage : passages) {
+            builder.append(passage.render());
+        }
+        return builder.toString();
+    }
+
+    private record Ranked(DocumentChunk chunk, int rank) {
+    }
+
+    private static final class Passage {
+        private final String source;
+        private final int firstIndex;
+        private final StringBuilder text;
+        private int lastIndex;
+        private int rank;
+        private int chunkCount = 1;
+
+        private Passage(String source, int index, String text, int rank) {
+            this.source = source;
+            this.firstIndex = index;
+            this.lastIndex = index;
+            this.text = new StringBuilder(text);
+            this.rank = rank;
+        }
+
+        static Passage of(DocumentChunk chunk) {
+            return new Passage(chunk.source(), chunk.chunkIndex(), chunk.text(), 0);
+        }
+
+        void append(String next, int index, int nextRank) {
+            int overlap = overlap(text, next);
+            if (overlap == 0) {
+                text.append(' ');
+            }
+            text.append(next, overlap, next.length());
+            lastIndex = index;
+            rank = Math.min(rank, nextRank);
+            chunkCount++;
+        }
+
+        String render() {
+            String chunks = firstIndex == lastIndex ? "Chunk: " + firstIndex : "Chunks: " + firstIndex + "-" + lastIndex;
+            return "Source: " + source + " | " + chunks + "\n" + text + "\n\n";
+        }
+    }
+
+    /**
+     * @param text        context block for the prompt
+     * @param tokens      tokens in {@code text}
+     * @param savedTokens tokens saved against concatenating every retrieved chunk verbatim
+     * @param chunks      retrieved chunks that made it into {@code text}
+     */
+    public record PackedContext(String text, int tokens, int savedTokens, int chunks) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.openai.services;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Generation bookkeeping for {@code rag_chunks}, per collection.
+ * A load writes its rows with {@code generation = N} and marks replaced rows with
+ * {@code retired_generation = N}; none of that is visible until {@link #activate} flips the
+ * collection's {@code rag_collections.active_generation} to N in a single-row update. Readers filter on
+ * {@link #VISIBLE_CHUNKS_PREDICATE} and never wait for a writer. Every statement names its collection,
+ * so it only touches that collection's partition.
+ */
+@Component
+public class CorpusGenerationStore {
+
+    /**
+     * Rows of {@code rag_chunks c} visible in the active generation of their collection {@code rag_collections s}.
+     * Queries add {@code c.collection = ?} so that only one partition is scanned.
+     */
+    public static final String VISIBLE_CHUNKS_PREDICATE = """
+            s.name = c.collection
+              AND c.generation <= s.active_generation
+              AND (c.retired_generation IS NULL OR c.retired_generation > s.active_generation)""";
+
+    private static final String SELECT_ACTIVE_GENERATION_SQL = "SELECT active_generation FROM rag_collections WHERE name = ?";
+    private static final String DISCARD_STAGED_CHUNKS_SQL = "DELETE FROM rag_chunks WHERE collection = ? AND generation > ?";
+    private static final String RESTORE_RETIRED_CHUNKS_SQL = """
+            UPDATE rag_chunks SET retired_generation = NULL
+            WHERE collection = ? AND retired_generation > ?
+            """;
+    private static final String RETIRE_SOURCE_CHUNKS_SQL = """
+            UPDATE rag_chunks SET retired_generation = ?
+            WHERE collection = ? AND source_path = ? AND retired_generation IS NULL AND generation < ?
+            """;
+    private static final String RETIRE_UNTRACKED_CHUNKS_SQL = """
+            UPDATE rag_chunks SET retired_generation = ?
+            WHERE collection = ? AND source_path IS NULL AND retired_generation IS NULL
+            """;
+    private static final String ACTIVATE_GENERATION_SQL = """
+            UPDATE rag_collections SET active_generation = ?, activated_at = now()
+            WHERE name = ? AND active_generation = ?
+            """;
+    private static final String DISCARD_UNCHECKPOINTED_CHUNKS_SQL = """
+            DELETE FROM rag_chunks
+            WHERE collection = ? AND generation = ? AND (source_path IS NULL OR NOT (source_path = ANY(?)))
+            """;
+    private static final String RESTORE_UNCHECKPOINTED_CHUNKS_SQL = """
+            UPDATE rag_chunks SET retired_generation = NULL
+            WHERE collection = ? AND retired_generation = ? AND (source_path IS NULL OR NOT (source_path = ANY(?)))
+            """;
+    private static final String DISCARD_STAGED_SOURCE_SQL = "DELETE FROM rag_chunks WHERE collection = ? AND generation = ? AND source_path = ?";
+    private static final String PURGE_RETIRED_CHUNKS_SQL = "DELETE FROM rag_chunks WHERE collection = ? AND retired_generation <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CorpusGenerationStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long activeGeneration(String collection) {
+        List<Long> generation = jdbcTemplate.queryForList(SELECT_ACTIVE_GENERATION_SQL, Long.class, collection);
+        return generation.isEmpty() || generation.get(0) == null ? 0 : generation.get(0);
+    }
+
+    /**
+     * Drops whatever an interrupted load of {@code collection} left behind and returns the generation
+     * the next load writes into.
+     */
+    long beginLoad(String collection, long activeGeneration) {
+        discard(collection, activeGeneration);
+        return activeGeneration + 1;
+    }
+
+    /**
+     * Prepares the staged {@code generation} of an unfinished load to be continued: rows and retirements
+     * of {@code checkpointedSources} are kept, everything else the load staged is undone.
+     */
+    void resumeLoad(String collection, long generation, Collection<String> checkpointedSources) {
+        for (String sql : List.of(DISCARD_UNCHECKPOINTED_CHUNKS_SQL, RESTORE_UNCHECKPOINTED_CHUNKS_SQL)) {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setString(1, collection);
+                statement.setLong(2, generation);
+                statement.setArray(3, connection.createArrayOf("text", checkpointedSources.toArray()));
+                return statement;
+            });
+        }
+    }
+
+    void discardStagedSource(String collection, String sourcePath, long generation) {
+        jdbcTemplate.update(DISCARD_STAGED_SOURCE_SQL, collection, generation, sourcePath);
+    }
+
+    void retireSources(String collection, List<String> sourcePaths, long generation) {
+        if (sourcePaths.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                RETIRE_SOURCE_CHUNKS_SQL,
+                sourcePaths,
+                200,
+                (ps, sourcePath) -> {
+                    ps.setLong(1, generation);
+                    ps.setString(2, collection);
+                    ps.setString(3, sourcePath);
+                    ps.setLong(4, generation);
+                }
+        );
+    }
+
+    void retireUntracked(String collection, long generation) {
+        jdbcTemplate.update(RETIRE_UNTRACKED_CHUNKS_SQL, generation, collection);
+    }
+
+    /**
+     * Makes {@code generation} the one readers of {@code collection} see. Must run inside the
+     * transaction that also commits the matching source fingerprints.
+     */
+    void activate(String collection, long previousGeneration, long generation) {
+        int updated = jdbcTemplate.update(ACTIVATE_GENERATION_SQL, generation, collection, previousGeneration);
+        if (updated != 1) {
+            throw new IllegalStateException("Generation of collection " + collection + " changed during the load; another load finished first.");
+        }
+    }
+
+    void purgeRetired(String collection, long activeGeneration) {
+        jdbcTemplate.update(PURGE_RETIRED_CHUNKS_SQL, collection, activeGeneration);
+    }
+
+    void discard(String collection, long activeGeneration) {
+        jdbcTemplate.update(DISCARD_STAGED_CHUNKS_SQL, collection, activeGeneration);
+        jdbcTemplate.update(RESTORE_RETIRED_CHUNKS_SQL, collection, activeGeneration);
+    }
+}
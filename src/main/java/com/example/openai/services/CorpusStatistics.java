@@ -0,0 +1,162 @@
+package com.example.openai.services;
+
+import com.example.openai.models.RagCorpusStats;
+import com.example.openai.models.RagSourceStats;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-source chunk counts, character totals and chunk id ranges for the active generation of each
+ * collection, kept in {@code rag_source_stats} and mirrored in memory. A load updates the table in the same
+ * transaction that activates its generation, touching only the sources it changed or removed, and
+ * then refreshes the in-memory copy; readers never scan {@code rag_chunks} for them.
+ */
+@Component
+public class CorpusStatistics {
+
+    private static final String DELETE_SOURCE_STATS_SQL = "DELETE FROM rag_source_stats WHERE collection = ? AND source_path = ANY(?)";
+    private static final String INSERT_GENERATION_STATS_SQL = """
+            INSERT INTO rag_source_stats (collection, source_path, source, chunk_count, char_count, first_chunk_id, last_chunk_id, generation)
+            SELECT collection, source_path, MIN(source), COUNT(*), SUM(LENGTH(content)), MIN(id), MAX(id), generation
+            FROM rag_chunks
+            WHERE collection = ? AND generation = ? AND source_path IS NOT NULL
+            GROUP BY collection, source_path, generation
+            ON CONFLICT (collection, source_path) DO UPDATE SET
+                source = EXCLUDED.source,
+                chunk_count = EXCLUDED.chunk_count,
+                char_count = EXCLUDED.char_count,
+                first_chunk_id = EXCLUDED.first_chunk_id,
+                last_chunk_id = EXCLUDED.last_chunk_id,
+                generation = EXCLUDED.generation
+            """;
+    private static final String BACKFILL_STATS_SQL = """
+            INSERT INTO rag_source_stats (collection, source_path, source, chunk_count, char_count, first_chunk_id, last_chunk_id, generation)
+            SELECT c.collection, COALESCE(c.source_path, c.source), MIN(c.source), COUNT(*), SUM(LENGTH(c.content)),
+                   MIN(c.id), MAX(c.id), MAX(c.generation)
+            FROM rag_chunks c, rag_collections s
+            WHERE c.collection = ? AND %s
+            GROUP BY c.collection, COALESCE(c.source_path, c.source)
+            ON CONFLICT (collection, source_path) DO NOTHING
+            """.formatted(CorpusGenerationStore.VISIBLE_CHUNKS_PREDICATE);
+    private static final String DELETE_UNTRACKED_STATS_SQL = """
+            DELETE FROM rag_source_stats st
+            WHERE st.collection = ?
+              AND NOT EXISTS (SELECT 1 FROM rag_sources r WHERE r.collection = st.collection AND r.source_path = st.source_path)
+            """;
+    private static final String SELECT_SOURCE_STATS_SQL = """
+            SELECT source_path, source, chunk_count, char_count, first_chunk_id, last_chunk_id
+            FROM rag_source_stats
+            WHERE collection = ?
+            ORDER BY source_path
+            """;
+    private static final String SELECT_CORPUS_STATE_SQL = "SELECT active_generation, activated_at FROM rag_collections WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, RagCorpusStats> snapshots = new ConcurrentHashMap<>();
+
+    public CorpusStatistics(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Current statistics of an existing {@code collection}. The returned object is shared; callers must not modify it.
+     */
+    public RagCorpusStats current(String collection) {
+        RagCorpusStats current = snapshots.get(collection);
+        if (current == null) {
+            synchronized (this) {
+                current = snapshots.get(collection);
+                if (current == null) {
+                    current = loadSnapshot(collection, true);
+                    snapshots.put(collection, current);
+                }
+            }
+        }
+        return current;
+    }
+
+    public boolean isEmpty(String collection) {
+        return current(collection).getChunkCount() == 0;
+    }
+
+    /**
+     * Replaces the rows of {@code replacedSources} with the stats of what {@code generation} wrote, and
+     * drops the rows backfilled for chunks without a {@code source_path}, which every load retires.
+     * Must run inside the transaction that activates {@code generation}, after its fingerprints are saved.
+     */
+    void recordLoad(String collection, long generation, Collection<String> replacedSources) {
+        if (!replacedSources.isEmpty()) {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(DELETE_SOURCE_STATS_SQL);
+                Array sourcePaths = connection.createArrayOf("text", replacedSources.toArray());
+                statement.setString(1, collection);
+                statement.setArray(2, sourcePaths);
+                return statement;
+            });
+        }
+        jdbcTemplate.update(INSERT_GENERATION_STATS_SQL, collection, generation);
+        jdbcTemplate.update(DELETE_UNTRACKED_STATS_SQL, collection);
+    }
+
+    /**
+     * Reloads the in-memory copy after the load's transaction has committed.
+     */
+    void refresh(String collection) {
+        synchronized (this) {
+            snapshots.put(collection, loadSnapshot(collection, false));
+        }
+    }
+
+    private RagCorpusStats loadSnapshot(String collection, boolean backfill) {
+        List<RagSourceStats> sources = querySources(collection);
+        if (sources.isEmpty() && backfill) {
+            // Corpora loaded before rag_source_stats existed: one grouped scan, then never again. Chunks
+            // from before source tracking have no source_path and are counted under their source name.
+            jdbcTemplate.update(BACKFILL_STATS_SQL, collection);
+            sources = querySources(collection);
+        }
+
+        long chunkCount = 0;
+        long totalChars = 0;
+        for (RagSourceStats source : sources) {
+            chunkCount += source.getChunkCount();
+            totalChars += source.getCharCount();
+        }
+
+        Map<String, Object> state = jdbcTemplate.queryForMap(SELECT_CORPUS_STATE_SQL, collection);
+        Timestamp activatedAt = (Timestamp) state.get("activated_at");
+        return new RagCorpusStats(
+                collection,
+                ((Number) state.get("active_generation")).longValue(),
+                activatedAt == null ? null : activatedAt.toInstant(),
+                sources.size(),
+                chunkCount,
+                totalChars,
+                List.copyOf(sources)
+        );
+    }
+
+    private List<RagSourceStats> querySources(String collection) {
+        List<RagSourceStats> sources = new ArrayList<>();
+        jdbcTemplate.query(SELECT_SOURCE_STATS_SQL, rs -> {
+            sources.add(new RagSourceStats(
+                    rs.getString("source_path"),
+                    rs.getString("source"),
+                    rs.getInt("chunk_count"),
+                    rs.getLong("char_count"),
+                    rs.getLong("first_chunk_id"),
+                    rs.getLong("last_chunk_id")
+            ));
+        }, collection);
+        return sources;
+    }
+}
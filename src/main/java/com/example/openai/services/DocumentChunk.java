@@ -0,0 +1,4 @@
+package com.example.openai.services;
+
+public record DocumentChunk(String sourcePath, String source, int chunkIndex, String text, float[] embedding) {
+}
@@ -0,0 +1,59 @@
+package com.example.openai.services;
+
+import org.jsoup.Jsoup;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+@Component
+public class DocumentTextExtractor {
+
+    private final PdfTextExtractor pdfTextExtractor;
+
+    public DocumentTextExtractor(PdfTextExtractor pdfTextExtractor) {
+        this.pdfTextExtractor = pdfTextExtractor;
+    }
+
+    public boolean isSupported(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return fileName.endsWith(".pdf")
+                || fileName.endsWith(".txt")
+                || fileName.endsWith(".md")
+                || fileName.endsWith(".html")
+                || fileName.endsWith(".htm");
+    }
+
+    public String extractText(Path file) {
+        try (Reader reader = openText(file)) {
+            StringWriter text = new StringWriter();
+            reader.transferTo(text);
+            return text.toString();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Opens the text of {@code file} for streaming. PDF text arrives page by page while later pages are
+     * still being extracted; see {@link PdfTextExtractor}.
+     */
+    public Reader openText(Path file) throws IOException {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+
+        if (fileName.endsWith(".pdf")) {
+            return pdfTextExtractor.open(file);
+        }
+        if (fileName.endsWith(".html") || fileName.endsWith(".htm")) {
+            String html = Files.readString(file, StandardCharsets.UTF_8);
+            return new StringReader(Jsoup.parse(html).text());
+        }
+        return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.openai.services;
+
+import com.example.openai.models.EmbeddingCacheStats;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches embeddings in front of the {@link EmbeddingModel}, keyed by (model, SHA-256 of the text).
+ * The in-memory tier is an LRU map of primitive {@code float[]} values bounded by
+ * {@code rag.embedding-cache.max-bytes}; the optional persistent tier ({@code embedding_cache} table)
+ * keeps entries across restarts. Model calls go through the {@link UpstreamGovernor}.
+ */
+@Component
+public class EmbeddingCache {
+
+    // Array header plus the map entry and key objects, roughly, on a 64-bit JVM with compressed oops.
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private static final String SELECT_PERSISTED_SQL = """
+            SELECT text_hash, embedding
+            FROM embedding_cache
+            WHERE model = ? AND text_hash = ANY(?)
+            """;
+    private static final String INSERT_PERSISTED_SQL = """
+            INSERT INTO embedding_cache (model, text_hash, embedding)
+            VALUES (?, ?, ?)
+            ON CONFLICT (model, text_hash) DO NOTHING
+            """;
+
+    private final EmbeddingModel embeddingModel;
+    private final JdbcTemplate jdbcTemplate;
+    private final UpstreamGovernor upstreamGovernor;
+    private final String modelName;
+    private final long maxBytes;
+    private final boolean persistent;
+
+    private final LinkedHashMap<CacheKey, float[]> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long cachedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder persistentHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EmbeddingCache(EmbeddingModel embeddingModel,
+                          JdbcTemplate jdbcTemplate,
+                          UpstreamGovernor upstreamGovernor,
+                          @Value("${spring.ai.openai.embedding.options.model:text-embedding-ada-002}") String modelName,
+                          @Value("${rag.embedding-cache.max-bytes:67108864}") long maxBytes,
+                          @Value("${rag.embedding-cache.persistent:false}") boolean persistent) {
+        this.embeddingModel = embeddingModel;
+        this.jdbcTemplate = jdbcTemplate;
+        this.upstreamGovernor = upstreamGovernor;
+        this.modelName = modelName;
+        this.maxBytes = maxBytes;
+        this.persistent = persistent && jdbcTemplate != null;
+    }
+
+    public float[] embed(String text) {
+        return embedAll(List.of(text)).get(0);
+    }
+
+    public List<float[]> embedAll(List<String> texts) {
+        return embedAll(texts, UpstreamGovernor.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Returns one embedding per text, in order. Texts missing from both tiers are embedded with a
+     * single model call, admitted by the {@link UpstreamGovernor} at {@code priority}; duplicates within
+     * the list are embedded once.
+     */
+    public List<float[]> embedAll(List<String> texts, UpstreamGovernor.Priority priority) {
+        float[][] results = new float[texts.size()][];
+        CacheKey[] keys = new CacheKey[texts.size()];
+        Map<CacheKey, List<Integer>> missing = new LinkedHashMap<>();
+
+        for (int i = 0; i < texts.size(); i++) {
+            keys[i] = keyOf(texts.get(i));
+            float[] cached = get(keys[i]);
+            if (cached != null) {
+                hits.increment();
+                results[i] = cached;
+            } else {
+                missing.computeIfAbsent(keys[i], key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        if (!missing.isEmpty() && persistent) {
+            for (Map.Entry<CacheKey, float[]> persisted : loadPersisted(missing.keySet()).entrySet()) {
+                put(persisted.getKey(), persisted.getValue());
+                for (int index : missing.remove(persisted.getKey())) {
+                    persistentHits.increment();
+                    results[index] = persisted.getValue();
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<CacheKey> missingKeys = new ArrayList<>(missing.keySet());
+            List<String> missingTexts = new ArrayList<>(missingKeys.size());
+            for (CacheKey key : missingKeys) {
+                missingTexts.add(texts.get(missing.get(key).get(0)));
+            }
+
+            List<float[]> vectors = upstreamGovernor.call(modelName, priority, upstreamGovernor.promptTokens(missingTexts),
+                    () -> embeddingModel.embed(missingTexts));
+            if (vectors == null || vectors.size() != missingTexts.size()) {
+                throw new IllegalStateException("Embedding model returned " + (vectors == null ? 0 : vectors.size())
+                        + " embeddings for " + missingTexts.size() + " texts.");
+            }
+
+            Map<CacheKey, float[]> computed = new LinkedHashMap<>();
+            for (int i = 0; i < missingKeys.size(); i++) {
+                CacheKey key = missingKeys.get(i);
+                float[] vector = vectors.get(i);
+                computed.put(key, vector);
+                put(key, vector);
+                for (int index : missing.get(key)) {
+                    misses.increment();
+                    results[index] = vector;
+                }
+            }
+            if (persistent) {
+                savePersisted(computed);
+            }
+        }
+
+        return List.of(results);
+    }
+
+    public EmbeddingCacheStats stats() {
+        int size;
+        long bytes;
+        synchronized (entries) {
+            size = entries.size();
+            bytes = cachedBytes;
+        }
+        return new EmbeddingCacheStats(
+                modelName,
+                hits.sum(),
+                persistentHits.sum(),
+                misses.sum(),
+                evictions.sum(),
+                size,
+                bytes,
+                maxBytes,
+                persistent
+        );
+    }
+
+    private float[] get(CacheKey key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private void put(CacheKey key, float[] vector) {
+        long entryBytes = sizeOf(vector);
+        if (entryBytes > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            float[] previous = entries.put(key, vector);
+            if (previous != null) {
+                cachedBytes -= sizeOf(previous);
+            }
+            cachedBytes += entryBytes;
+            var eldest = entries.entrySet().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                cachedBytes -= sizeOf(eldest.next().getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private Map<CacheKey, float[]> loadPersisted(Iterable<CacheKey> keys) {
+        Map<String, CacheKey> keysByHash = new HashMap<>();
+        keys.forEach(key -> keysByHash.put(key.hex(), key));
+
+        Map<CacheKey, float[]> found = new HashMap<>();
+        jdbcTemplate.query(
+                connection -> {
+                    PgVectorCodec.registerBinaryTransfer(connection);
+                    PreparedStatement statement = connection.prepareStatement(SELECT_PERSISTED_SQL);
+                    Array hashes = connection.createArrayOf("text", keysByHash.keySet().toArray());
+                    statement.setString(1, modelName);
+                    statement.setArray(2, hashes);
+                    return statement;
+                },
+                rs -> {
+                    found.put(keysByHash.get(rs.getString("text_hash")), PgVectorCodec.readVector(rs, "embedding"));
+                }
+        );
+        return found;
+    }
+
+    private void savePersisted(Map<CacheKey, float[]> computed) {
+        jdbcTemplate.execute((ConnectionCallback<int[]>) connection -> {
+            PgVectorCodec.registerBinaryTransfer(connection);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PERSISTED_SQL)) {
+                for (Map.Entry<CacheKey, float[]> row : computed.entrySet()) {
+                    statement.setString(1, modelName);
+                    statement.setString(2, row.getKey().hex());
+                    statement.setObject(3, PgVectorCodec.toParameter(row.getValue()));
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+    }
+
+    private CacheKey keyOf(String text) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        digest.update(modelName.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        return new CacheKey(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    private static long sizeOf(float[] vector) {
+        return ENTRY_OVERHEAD_BYTES + 4L * vector.length;
+    }
+
+    /**
+     * SHA-256 of (model, text) held as four longs instead of a byte array or hex string.
+     */
+    private record CacheKey(long h0, long h1, long h2, long h3) {
+        String hex() {
+            HexFormat hex = HexFormat.of();
+            return hex.toHexDigits(h0) + hex.toHexDigits(h1) + hex.toHexDigits(h2) + hex.toHexDigits(h3);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.openai.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batches {@code /embed} requests. Requests are queued, and a dispatcher thread collects them for
+ * up to {@code embed.batch.window-millis} after the first one arrives, or until
+ * {@code embed.batch.max-size} are waiting. Each batch is embedded with one {@link EmbeddingCache#embedAll}
+ * call, so one model request for the texts not already cached, and written to {@code documents} with
+ * one multi-row insert. Every caller's future then completes with its own vector.
+ * <p>
+ * A longer window makes batches fuller at the cost of added latency per request; a window of 0 batches
+ * only what queued up while the previous batch was being sent. Up to {@code embed.batch.max-in-flight}
+ * batches are sent at once, and at most {@code embed.batch.queue-capacity} requests wait before new
+ * ones are rejected. If the dispatcher stops, requests still queued fail instead of waiting forever.
+ */
+@Component
+public class EmbeddingCoalescer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCoalescer.class);
+
+    // Two bind parameters per row keep a full batch far below Postgres' 65535-parameter limit.
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final EmbeddingCache embeddingCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingEmbedding> queue;
+    private final Semaphore inFlight;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread dispatcher;
+    private volatile boolean stopped;
+
+    public EmbeddingCoalescer(EmbeddingCache embeddingCache,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${embed.batch.window-millis:5}") long windowMillis,
+                              @Value("${embed.batch.max-size:64}") int maxBatchSize,
+                              @Value("${embed.batch.max-in-flight:4}") int maxInFlight,
+                              @Value("${embed.batch.queue-capacity:10000}") int queueCapacity) {
+        this.embeddingCache = embeddingCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        this.maxBatchSize = Math.clamp(maxBatchSize, 1, MAX_BATCH_SIZE);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        this.dispatcher = Thread.ofVirtual().name("embed-coalescer").start(this::dispatch);
+    }
+
+    /**
+     * Embeds {@code content} and stores it in {@code documents} together with the requests batched with it.
+     */
+    public CompletableFuture<float[]> submit(String content) {
+        if (stopped) {
+            throw new IllegalStateException("Embedding coalescer has stopped.");
+        }
+        PendingEmbedding pending = new PendingEmbedding(content == null ? "" : content, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            throw new IllegalStateException("Too many embedding requests are queued; try again later.");
+        }
+        if (stopped) {
+            // The dispatcher may have drained the queue for the last time before this request was added.
+            failQueued(new IllegalStateException("Embedding coalescer has stopped."));
+        }
+        return pending.result();
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        dispatcher.interrupt();
+        executor.shutdownNow();
+        failQueued(new IllegalStateException("Embedding coalescer is shutting down."));
+    }
+
+    private void dispatch() {
+        List<PendingEmbedding> batch = List.of();
+        Throwable cause = null;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch = new ArrayList<>(maxBatchSize);
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingEmbedding next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                inFlight.acquire();
+                List<PendingEmbedding> sending = batch;
+                try {
+                    executor.execute(() -> {
+                        try {
+                            flush(sending);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    fail(batch, new IllegalStateException("Embedding coalescer is shutting down.", e));
+                    return;
+                }
+                batch = List.of();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            cause = e;
+            log.error("Embedding coalescer stopped: {}", e.getMessage(), e);
+            throw e;
+        } finally {
+            // Nothing takes from the queue any more, so fail what is left instead of leaving callers waiting.
+            stopped = true;
+            IllegalStateException error = new IllegalStateException("Embedding coalescer has stopped.", cause);
+            fail(batch, error);
+            failQueued(error);
+        }
+    }
+
+    private void flush(List<PendingEmbedding> batch) {
+        List<String> texts = batch.stream().map(PendingEmbedding::content).toList();
+        List<float[]> vectors;
+        try {
+            vectors = embeddingCache.embedAll(texts);
+            insert(texts, vectors);
+        } catch (Throwable e) {
+            fail(batch, e);
+            log.warn("Embedding batch of {} request(s) failed: {}", batch.size(), e.getMessage(), e);
+            if (e instanceof Error error) {
+                throw error;
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(vectors.get(i));
+        }
+    }
+
+    private void insert(List<String> texts, List<float[]> vectors) {
+        StringBuilder sql = new StringBuilder("INSERT INTO documents (content, embedding) VALUES ");
+        for (int i = 0; i < texts.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+        }
+        jdbcTemplate.update(connection -> {
+            // Bind the vectors in pgvector's binary format instead of decimal '[1.0,2.0,...]' literals
+            PgVectorCodec.registerBinaryTransfer(connection);
+            PreparedStatement statement = connection.prepareStatement(sql.toString());
+            for (int i = 0; i < texts.size(); i++) {
+                statement.setString(2 * i + 1, texts.get(i));
+                statement.setObject(2 * i + 2, PgVectorCodec.toParameter(vectors.get(i)));
+            }
+            return statement;
+        });
+    }
+
+    private void failQueued(RuntimeException error) {
+        List<PendingEmbedding> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        fail(abandoned, error);
+    }
+
+    private static void fail(List<PendingEmbedding> batch, Throwable error) {
+        for (PendingEmbedding pending : batch) {
+            pending.result().completeExceptionally(error);
+        }
+    }
+
+    private record PendingEmbedding(String content, CompletableFuture<float[]> result) {
+    }
+}
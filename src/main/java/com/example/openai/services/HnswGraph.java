@@ -0,0 +1,790 @@
+package com.example.openai.services;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical navigable small world graph over unit-length embeddings, using cosine distance
+ * ({@code 1 - dot}) to match pgvector's {@code <=>}.
+ * <p>
+ * All per-node data lives in flat primitive arrays indexed by node number: vectors in segments of
+ * {@code float[]}, each holding a fixed power-of-two number of nodes so that no array nears Java's
+ * 2^31-element limit and growing the graph only copies the last segment; layer-0 links in one
+ * {@code int[]} with a count slot per node; and only the few nodes above layer 0 get their own link
+ * array. The layer-0 links cap a graph at {@code Integer.MAX_VALUE / (2m + 1)} nodes, about 65 million
+ * at {@code m = 16}; {@link #add} refuses chunks beyond that. Nodes are appended as pending
+ * and only become searchable once {@link #publish} runs, so a reader never sees half of a load.
+ * Removed chunks are tombstoned and still used for navigation until the graph is rebuilt.
+ * <p>
+ * Not thread-safe; {@link HnswVectorStore} guards it with a read/write lock.
+ */
+final class HnswGraph {
+
+    static final byte PENDING = 0;
+    static final byte LIVE = 1;
+    static final byte DELETED = 2;
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int FORMAT_VERSION = 2;
+    private static final int SEGMENT_FLOATS = 1 << 24;
+
+    private final int dimensions;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final int maxNodes;
+    private final int m;
+    private final int maxLinks0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private long generation;
+    private int size;
+    private int publishedSize;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int liveCount;
+    private int deletedCount;
+
+    private float[][] vectorSegments;
+    private int[] links0;
+    private int[][] upperLinks;
+    private int[] levels;
+    private byte[] states;
+    private long[] chunkIds;
+    private int[] chunkIndexes;
+    private String[] sourcePaths;
+    private String[] sources;
+    private String[] contents;
+    private final Map<Long, Integer> nodesByChunkId = new HashMap<>();
+
+    HnswGraph(int dimensions, int m, int efConstruction, int initialCapacity) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("HNSW dimensions must be positive.");
+        }
+        this.dimensions = dimensions;
+        this.m = Math.max(2, m);
+        this.maxLinks0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+        this.segmentShift = 31 - Integer.numberOfLeadingZeros(Math.max(1, SEGMENT_FLOATS / dimensions));
+        this.segmentMask = (1 << segmentShift) - 1;
+        this.maxNodes = (Integer.MAX_VALUE - 8) / (maxLinks0 + 1);
+        allocate(Math.clamp(initialCapacity, 16, maxNodes));
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int liveCount() {
+        return liveCount;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    boolean matches(int dimensions, int m, int efConstruction) {
+        return this.dimensions == dimensions && this.m == Math.max(2, m) && this.efConstruction == Math.max(this.m, efConstruction);
+    }
+
+    /**
+     * Inserts a chunk as pending. It is linked into the graph right away but not returned by
+     * {@link #search} until the next {@link #publish}.
+     */
+    void add(long chunkId, String sourcePath, String source, int chunkIndex, String content, float[] embedding) {
+        if (embedding.length != dimensions) {
+            throw new IllegalArgumentException("Embedding has " + embedding.length + " dimensions, index expects " + dimensions + ".");
+        }
+        if (size == states.length) {
+            if (size == maxNodes) {
+                throw new IllegalStateException("HNSW index is full at " + maxNodes
+                        + " chunks; serve this collection with rag.vector-store=pgvector instead.");
+            }
+            allocate((int) Math.min(2L * size, maxNodes));
+        }
+
+        int node = size++;
+        float[] vector = vectorSegment(node);
+        int base = vectorOffset(node);
+        normalizeInto(embedding, vector, base);
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        levels[node] = level;
+        states[node] = PENDING;
+        chunkIds[node] = chunkId;
+        chunkIndexes[node] = chunkIndex;
+        sourcePaths[node] = sourcePath;
+        sources[node] = source;
+        contents[node] = content;
+        upperLinks[node] = level == 0 ? null : new int[level * (m + 1)];
+        nodesByChunkId.put(chunkId, node);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        float currentDistance = distance(vector, base, current);
+        for (int layer = maxLevel; layer > level; layer--) {
+            current = greedyClosest(vector, base, current, currentDistance, layer);
+            currentDistance = distance(vector, base, current);
+        }
+
+        BitSet visited = new BitSet(size);
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            visited.clear();
+            NodeHeap candidates = searchLayer(vector, base, current, currentDistance, efConstruction, layer, visited);
+            int[] sorted = candidates.drainAscending();
+            int[] selected = selectNeighbors(node, sorted, m);
+            setLinks(node, layer, selected, selected.length);
+            int maxLinks = layer == 0 ? maxLinks0 : m;
+            for (int neighbor : selected) {
+                addLink(neighbor, layer, node, maxLinks);
+            }
+            current = sorted[0];
+            currentDistance = distance(vector, base, current);
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Makes every pending node searchable, tombstones {@code removedChunkIds} and records the
+     * generation the graph now reflects.
+     */
+    void publish(Collection<Long> removedChunkIds, long generation) {
+        for (int node = publishedSize; node < size; node++) {
+            states[node] = LIVE;
+        }
+        liveCount += size - publishedSize;
+        publishedSize = size;
+        for (Long chunkId : removedChunkIds) {
+            Integer node = nodesByChunkId.remove(chunkId);
+            if (node != null && states[node] == LIVE) {
+                states[node] = DELETED;
+                liveCount--;
+                deletedCount++;
+            }
+        }
+        this.generation = generation;
+    }
+
+    List<DocumentChunk> search(float[] query, int topK, int efSearch) {
+        if (liveCount == 0 || query.length != dimensions) {
+            return List.of();
+        }
+        float[] unitQuery = new float[dimensions];
+        normalizeInto(query, unitQuery, 0);
+
+        int current = entryPoint;
+        float currentDistance = distance(unitQuery, 0, current);
+        for (int layer = maxLevel; layer > 0; layer--) {
+            current = greedyClosest(unitQuery, 0, current, currentDistance, layer);
+            currentDistance = distance(unitQuery, 0, current);
+        }
+
+        // Tombstoned and pending nodes take part in the walk, so widen the beam by the share they occupy.
+        int ef = Math.max(efSearch, topK) + Math.min(deletedCount + size - publishedSize, Math.max(efSearch, topK));
+        NodeHeap found = searchLayer(unitQuery, 0, current, currentDistance, ef, 0, new BitSet(size));
+        int[] sorted = found.drainAscending();
+
+        List<DocumentChunk> results = new ArrayList<>(topK);
+        for (int node : sorted) {
+            if (states[node] != LIVE) {
+                continue;
+            }
+            results.add(new DocumentChunk(sourcePaths[node], sources[node], chunkIndexes[node], contents[node], null));
+            if (results.size() == topK) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    private int greedyClosest(float[] query, int queryOffset, int start, float startDistance, int layer) {
+        int current = start;
+        float currentDistance = startDistance;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] links = linksOf(current, layer);
+            int offset = linkOffset(current, layer);
+            for (int i = 1; i <= links[offset]; i++) {
+                int neighbor = links[offset + i];
+                float neighborDistance = distance(query, queryOffset, neighbor);
+                if (neighborDistance < currentDistance) {
+                    current = neighbor;
+                    currentDistance = neighborDistance;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private NodeHeap searchLayer(float[] query, int queryOffset, int start, float startDistance, int ef, int layer, BitSet visited) {
+        NodeHeap candidates = new NodeHeap(ef * 2, false);
+        NodeHeap results = new NodeHeap(ef + 1, true);
+        visited.set(start);
+        candidates.push(startDistance, start);
+        results.push(startDistance, start);
+
+        while (candidates.size() > 0) {
+            float closestDistance = candidates.topDistance();
+            if (results.size() >= ef && closestDistance > results.topDistance()) {
+                break;
+            }
+            int closest = candidates.pop();
+            int[] links = linksOf(closest, layer);
+            int offset = linkOffset(closest, layer);
+            for (int i = 1; i <= links[offset]; i++) {
+                int neighbor = links[offset + i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float neighborDistance = distance(query, queryOffset, neighbor);
+                if (results.size() < ef || neighborDistance < results.topDistance()) {
+                    candidates.push(neighborDistance, neighbor);
+                    results.push(neighborDistance, neighbor);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The HNSW neighbour heuristic: a candidate is kept only if it is closer to the base node than
+     * to any neighbour already kept, which spreads links in different directions. Skipped
+     * candidates fill any remaining slots.
+     */
+    private int[] selectNeighbors(int baseNode, int[] sortedCandidates, int limit) {
+        float[] baseVector = vectorSegment(baseNode);
+        int baseOffset = vectorOffset(baseNode);
+        int[] selected = new int[Math.min(limit, sortedCandidates.length)];
+        int count = 0;
+        int[] skipped = new int[sortedCandidates.length];
+        int skippedCount = 0;
+        for (int candidate : sortedCandidates) {
+            if (count == selected.length) {
+                break;
+            }
+            if (candidate == baseNode) {
+                continue;
+            }
+            float candidateDistance = distance(baseVector, baseOffset, candidate);
+            float[] candidateVector = vectorSegment(candidate);
+            int candidateOffset = vectorOffset(candidate);
+            boolean diverse = true;
+            for (int i = 0; i < count; i++) {
+                if (distance(candidateVector, candidateOffset, selected[i]) < candidateDistance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = candidate;
+            } else {
+                skipped[skippedCount++] = candidate;
+            }
+        }
+        for (int i = 0; i < skippedCount && count < selected.length; i++) {
+            selected[count++] = skipped[i];
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private void addLink(int node, int layer, int neighbor, int maxLinks) {
+        int[] links = linksOf(node, layer);
+        int offset = linkOffset(node, layer);
+        int count = links[offset];
+        if (count < maxLinks) {
+            links[offset + count + 1] = neighbor;
+            links[offset] = count + 1;
+            return;
+        }
+
+        float[] vector = vectorSegment(node);
+        int base = vectorOffset(node);
+        NodeHeap byDistance = new NodeHeap(count + 1, false);
+        for (int i = 1; i <= count; i++) {
+            byDistance.push(distance(vector, base, links[offset + i]), links[offset + i]);
+        }
+        byDistance.push(distance(vector, base, neighbor), neighbor);
+        int[] kept = selectNeighbors(node, byDistance.drainAscending(), maxLinks);
+        setLinks(node, layer, kept, kept.length);
+    }
+
+    private void setLinks(int node, int layer, int[] neighbors, int count) {
+        int[] links = linksOf(node, layer);
+        int offset = linkOffset(node, layer);
+        links[offset] = count;
+        System.arraycopy(neighbors, 0, links, offset + 1, count);
+    }
+
+    private int[] linksOf(int node, int layer) {
+        return layer == 0 ? links0 : upperLinks[node];
+    }
+
+    private int linkOffset(int node, int layer) {
+        return layer == 0 ? node * (maxLinks0 + 1) : (layer - 1) * (m + 1);
+    }
+
+    private float distance(float[] query, int queryOffset, int node) {
+        float[] vector = vectorSegment(node);
+        int offset = vectorOffset(node);
+        float dot = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dot += query[queryOffset + i] * vector[offset + i];
+        }
+        return 1 - dot;
+    }
+
+    private float[] vectorSegment(int node) {
+        return vectorSegments[node >>> segmentShift];
+    }
+
+    private int vectorOffset(int node) {
+        return (node & segmentMask) * dimensions;
+    }
+
+    /**
+     * Nodes stored in vector segment {@code segment} of a graph with {@code count} nodes.
+     */
+    private int segmentNodes(int segment, int count) {
+        return Math.min(segmentMask + 1, count - (segment << segmentShift));
+    }
+
+    private void allocate(int capacity) {
+        // Full segments are never copied again; only the last, partly used one grows.
+        int segments = ((capacity - 1) >>> segmentShift) + 1;
+        vectorSegments = vectorSegments == null ? new float[segments][] : Arrays.copyOf(vectorSegments, segments);
+        for (int segment = 0; segment < segments; segment++) {
+            int length = segmentNodes(segment, capacity) * dimensions;
+            float[] current = vectorSegments[segment];
+            if (current == null) {
+                vectorSegments[segment] = new float[length];
+            } else if (current.length < length) {
+                vectorSegments[segment] = Arrays.copyOf(current, length);
+            }
+        }
+        links0 = links0 == null ? new int[capacity * (maxLinks0 + 1)] : Arrays.copyOf(links0, capacity * (maxLinks0 + 1));
+        upperLinks = upperLinks == null ? new int[capacity][] : Arrays.copyOf(upperLinks, capacity);
+        levels = levels == null ? new int[capacity] : Arrays.copyOf(levels, capacity);
+        states = states == null ? new byte[capacity] : Arrays.copyOf(states, capacity);
+        chunkIds = chunkIds == null ? new long[capacity] : Arrays.copyOf(chunkIds, capacity);
+        chunkIndexes = chunkIndexes == null ? new int[capacity] : Arrays.copyOf(chunkIndexes, capacity);
+        sourcePaths = sourcePaths == null ? new String[capacity] : Arrays.copyOf(sourcePaths, capacity);
+        sources = sources == null ? new String[capacity] : Arrays.copyOf(sources, capacity);
+        contents = contents == null ? new String[capacity] : Arrays.copyOf(contents, capacity);
+    }
+
+    private static void normalizeInto(float[] vector, float[] target, int offset) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        double scale = norm == 0 ? 0 : 1.0 / Math.sqrt(norm);
+        for (int i = 0; i < vector.length; i++) {
+            target[offset + i] = (float) (vector[i] * scale);
+        }
+    }
+
+    /**
+     * Writes the published graph to {@code path} through a memory mapping of a temporary file that is
+     * then moved into place, so a crash never leaves a half-written index behind.
+     */
+    void save(Path path) throws IOException {
+        if (publishedSize != size) {
+            throw new IllegalStateException("Cannot save an HNSW index with pending nodes.");
+        }
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedWindow out = new MappedWindow(channel, FileChannel.MapMode.READ_WRITE);
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putLong(generation);
+            out.putInt(dimensions);
+            out.putInt(m);
+            out.putInt(efConstruction);
+            out.putInt(size);
+            out.putInt(entryPoint);
+            out.putInt(maxLevel);
+
+            out.putBytes(states, 0, size);
+            out.putInts(levels, 0, size);
+            out.putLongs(chunkIds, 0, size);
+            out.putInts(chunkIndexes, 0, size);
+            for (int segment = 0; segment < vectorSegments.length && segment << segmentShift < size; segment++) {
+                out.putFloats(vectorSegments[segment], 0, segmentNodes(segment, size) * dimensions);
+            }
+            out.putInts(links0, 0, size * (maxLinks0 + 1));
+            for (int node = 0; node < size; node++) {
+                if (levels[node] > 0) {
+                    out.putInts(upperLinks[node], 0, upperLinks[node].length);
+                }
+            }
+            for (int node = 0; node < size; node++) {
+                out.putString(sourcePaths[node]);
+                out.putString(sources[node]);
+                out.putString(contents[node]);
+            }
+            channel.truncate(out.finish());
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps an index written by {@link #save} and bulk-copies it into a new graph. Returns {@code null}
+     * when the file is missing or was written with different dimensions or build parameters.
+     */
+    static HnswGraph load(Path path, int dimensions, int m, int efConstruction) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedWindow in = new MappedWindow(channel, FileChannel.MapMode.READ_ONLY);
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long generation = in.getLong();
+            HnswGraph graph = new HnswGraph(in.getInt(), in.getInt(), in.getInt(), 16);
+            if (!graph.matches(dimensions, m, efConstruction)) {
+                return null;
+            }
+            int size = in.getInt();
+            if (size < 0 || size > graph.maxNodes) {
+                throw new IOException("HNSW index file holds " + size + " nodes, more than an index can address.");
+            }
+            graph.allocate(Math.max(16, size));
+            graph.size = size;
+            graph.publishedSize = size;
+            graph.entryPoint = in.getInt();
+            graph.maxLevel = in.getInt();
+            graph.generation = generation;
+
+            in.getBytes(graph.states, 0, size);
+            in.getInts(graph.levels, 0, size);
+            in.getLongs(graph.chunkIds, 0, size);
+            in.getInts(graph.chunkIndexes, 0, size);
+            for (int segment = 0; segment < graph.vectorSegments.length && segment << graph.segmentShift < size; segment++) {
+                in.getFloats(graph.vectorSegments[segment], 0, graph.segmentNodes(segment, size) * graph.dimensions);
+            }
+            in.getInts(graph.links0, 0, size * (graph.maxLinks0 + 1));
+            for (int node = 0; node < size; node++) {
+                int level = graph.levels[node];
+                if (level > 0) {
+                    graph.upperLinks[node] = new int[level * (graph.m + 1)];
+                    in.getInts(graph.upperLinks[node], 0, graph.upperLinks[node].length);
+                }
+            }
+            for (int node = 0; node < size; node++) {
+                graph.sourcePaths[node] = in.getString();
+                graph.sources[node] = in.getString();
+                graph.contents[node] = in.getString();
+                if (graph.states[node] == LIVE) {
+                    graph.liveCount++;
+                    graph.nodesByChunkId.put(graph.chunkIds[node], node);
+                } else {
+                    graph.deletedCount++;
+                }
+            }
+            return graph;
+        }
+    }
+
+    /**
+     * Sequential reader/writer over a file mapped in fixed-size windows, which keeps each mapping
+     * well under the 2 GB limit of a single {@link MappedByteBuffer}.
+     */
+    private static final class MappedWindow {
+
+        private static final long WINDOW_BYTES = 64L << 20;
+
+        private final FileChannel channel;
+        private final FileChannel.MapMode mode;
+        private long windowStart;
+        private MappedByteBuffer buffer;
+
+        private MappedWindow(FileChannel channel, FileChannel.MapMode mode) {
+            this.channel = channel;
+            this.mode = mode;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer != null && buffer.remaining() >= bytes) {
+                return;
+            }
+            if (buffer != null) {
+                windowStart += buffer.position();
+            }
+            long length = mode == FileChannel.MapMode.READ_ONLY
+                    ? Math.min(WINDOW_BYTES, channel.size() - windowStart)
+                    : WINDOW_BYTES;
+            if (length < bytes) {
+                throw new IOException("HNSW index file is truncated.");
+            }
+            buffer = channel.map(mode, windowStart, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        long finish() {
+            long end = windowStart + (buffer == null ? 0 : buffer.position());
+            if (buffer != null && mode == FileChannel.MapMode.READ_WRITE) {
+                buffer.force();
+            }
+            return end;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putBytes(byte[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(1);
+                int count = Math.min(length, buffer.remaining());
+                buffer.put(values, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        void putInts(int[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(4);
+                int count = Math.min(length, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * 4);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        void putLongs(long[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(8);
+                int count = Math.min(length, buffer.remaining() / 8);
+                buffer.asLongBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * 8);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        void putFloats(float[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(4);
+                int count = Math.min(length, buffer.remaining() / 4);
+                buffer.asFloatBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * 4);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(8);
+            return buffer.getLong();
+        }
+
+        void getBytes(byte[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(1);
+                int count = Math.min(length, buffer.remaining());
+                buffer.get(values, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        void getInts(int[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(4);
+                int count = Math.min(length, buffer.remaining() / 4);
+                buffer.asIntBuffer().get(values, offset, count);
+                buffer.position(buffer.position() + count * 4);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        void getLongs(long[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(8);
+                int count = Math.min(length, buffer.remaining() / 8);
+                buffer.asLongBuffer().get(values, offset, count);
+                buffer.position(buffer.position() + count * 8);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        void getFloats(float[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(4);
+                int count = Math.min(length, buffer.remaining() / 4);
+                buffer.asFloatBuffer().get(values, offset, count);
+                buffer.position(buffer.position() + count * 4);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            getBytes(bytes, 0, bytes.length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Binary heap of (distance, node) pairs in parallel primitive arrays.
+     */
+    private static final class NodeHeap {
+
+        private float[] distances;
+        private int[] nodes;
+        private int size;
+        private final boolean maxHeap;
+
+        private NodeHeap(int capacity, boolean maxHeap) {
+            this.distances = new float[Math.max(4, capacity)];
+            this.nodes = new int[Math.max(4, capacity)];
+            this.maxHeap = maxHeap;
+        }
+
+        int size() {
+            return size;
+        }
+
+        float topDistance() {
+            return distances[0];
+        }
+
+        void push(float distance, int node) {
+            if (size == nodes.length) {
+                distances = Arrays.copyOf(distances, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(distance, distances[parent])) {
+                    break;
+                }
+                distances[i] = distances[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            distances[i] = distance;
+            nodes[i] = node;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            float distance = distances[size];
+            int node = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(distances[child + 1], distances[child])) {
+                    child++;
+                }
+                if (!before(distances[child], distance)) {
+                    break;
+                }
+                distances[i] = distances[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            distances[i] = distance;
+            nodes[i] = node;
+            return top;
+        }
+
+        /**
+         * Empties the heap and returns its nodes ordered from closest to farthest.
+         */
+        int[] drainAscending() {
+            int[] sorted = new int[size];
+            if (maxHeap) {
+                for (int i = sorted.length - 1; i >= 0; i--) {
+                    sorted[i] = pop();
+                }
+            } else {
+                for (int i = 0; i < sorted.length; i++) {
+                    sorted[i] = pop();
+                }
+            }
+            return sorted;
+        }
+
+        private boolean before(float a, float b) {
+            return maxHeap ? a > b : a < b;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.openai.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Answers top-k queries from an in-process {@link HnswGraph}, enabled with {@code rag.vector-store=hnsw}.
+ * <p>
+ * Each collection has its own graph, a derived copy of the active generation of its partition of
+ * {@code rag_chunks}. At startup a graph is mapped from its file when the file matches the active
+ * generation, and otherwise rebuilt from the table in the background; until then queries of that
+ * collection go to {@link PgVectorStore}. The {@value RagCollections#DEFAULT} collection uses
+ * {@code rag.hnsw.path}, others a sibling file named after the collection. After each load only
+ * the rows added and retired by that generation are applied, and the file is rewritten. A graph with
+ * too many tombstones is rebuilt off to the side and swapped in.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "rag.vector-store", havingValue = "hnsw")
+public class HnswVectorStore implements VectorStore {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswVectorStore.class);
+
+    private static final String SELECT_VISIBLE_CHUNKS_SQL = """
+            SELECT c.id, c.source_path, c.source, c.chunk_index, c.content, c.embedding
+            FROM rag_chunks c, rag_collections s
+            WHERE c.collection = ? AND %s
+            """.formatted(CorpusGenerationStore.VISIBLE_CHUNKS_PREDICATE);
+    private static final String SELECT_ADDED_CHUNKS_SQL = """
+            SELECT id, source_path, source, chunk_index, content, embedding
+            FROM rag_chunks
+            WHERE collection = ? AND generation > ? AND generation <= ?
+              AND (retired_generation IS NULL OR retired_generation > ?)
+            """;
+    private static final String SELECT_RETIRED_CHUNK_IDS_SQL = """
+            SELECT id
+            FROM rag_chunks
+            WHERE collection = ? AND generation <= ? AND retired_generation > ? AND retired_generation <= ?
+            """;
+
+    private final PgVectorStore fallback;
+    private final JdbcTemplate jdbcTemplate;
+    private final CorpusGenerationStore generationStore;
+    private final RagCollections collections;
+    private final Path indexPath;
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double maxDeletedRatio;
+
+    private final Map<String, CollectionIndex> indexes = new ConcurrentHashMap<>();
+
+    public HnswVectorStore(PgVectorStore fallback,
+                           JdbcTemplate jdbcTemplate,
+                           CorpusGenerationStore generationStore,
+                           RagCollections collections,
+                           @Value("${rag.hnsw.path:data/rag-hnsw.idx}") String indexPath,
+                           @Value("${rag.hnsw.dimensions:1536}") int dimensions,
+                           @Value("${rag.hnsw.m:16}") int m,
+                           @Value("${rag.hnsw.ef-construction:200}") int efConstruction,
+                           @Value("${rag.hnsw.ef-search:64}") int efSearch,
+                           @Value("${rag.hnsw.max-deleted-ratio:0.25}") double maxDeletedRatio) {
+        this.fallback = fallback;
+        this.jdbcTemplate = jdbcTemplate;
+        this.generationStore = generationStore;
+        this.collections = collections;
+        this.indexPath = Path.of(indexPath);
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = Math.max(1, efSearch);
+        this.maxDeletedRatio = maxDeletedRatio;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void openIndex() {
+        Thread.ofVirtual().name("hnsw-index-open").start(() -> {
+            for (String collection : collections.names()) {
+                open(index(collection));
+            }
+        });
+    }
+
+    private void open(CollectionIndex index) {
+        index.refreshLock.lock();
+        try {
+            long activeGeneration = generationStore.activeGeneration(index.collection);
+            HnswGraph loaded = HnswGraph.load(index.path, dimensions, m, efConstruction);
+            if (loaded != null && loaded.generation() == activeGeneration) {
+                index.swap(loaded);
+                log.info("Mapped HNSW index of collection {} for generation {} from {} ({} chunks).",
+                        index.collection, activeGeneration, index.path, loaded.liveCount());
+            } else {
+                rebuild(index, activeGeneration);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("HNSW index of collection {} could not be opened, serving /rag/ask from pgvector: {}", index.collection, e.getMessage(), e);
+        } finally {
+            index.refreshLock.unlock();
+        }
+    }
+
+    @Override
+    public List<DocumentChunk> search(String collection, float[] queryEmbedding, int topK, SearchProfile profile) {
+        CollectionIndex index = indexes.get(collection);
+        if (index != null) {
+            index.lock.readLock().lock();
+            try {
+                if (index.graph != null) {
+                    return index.graph.search(queryEmbedding, topK, profile.scale(efSearch));
+                }
+            } finally {
+                index.lock.readLock().unlock();
+            }
+        }
+        return fallback.search(collection, queryEmbedding, topK, profile);
+    }
+
+    @Override
+    public void generationActivated(String collection, long previousGeneration, long generation) {
+        CollectionIndex index = index(collection);
+        index.refreshLock.lock();
+        try {
+            HnswGraph current = index.currentGraph();
+            if (current != null && current.generation() == generation) {
+                return;
+            }
+            if (current != null && current.generation() == previousGeneration) {
+                applyGeneration(index, current, generation);
+                if (current.deletedCount() > maxDeletedRatio * Math.max(1, current.liveCount())) {
+                    rebuild(index, generation);
+                } else {
+                    save(index, current);
+                }
+            } else {
+                rebuild(index, generation);
+            }
+        } catch (IOException | RuntimeException e) {
+            // The load itself is already committed; drop the graph so queries fall back to pgvector.
+            index.swap(null);
+            log.warn("HNSW index refresh of collection {} for generation {} failed, serving /rag/ask from pgvector: {}",
+                    collection, generation, e.getMessage(), e);
+        } finally {
+            index.refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the rows {@code generation} added as pending nodes, one write-lock hold per row so queries
+     * keep running in between, then publishes them together with the tombstones in one step.
+     */
+    private void applyGeneration(CollectionIndex index, HnswGraph current, long generation) {
+        long indexedGeneration = current.generation();
+        jdbcTemplate.query(
+                chunkQuery(SELECT_ADDED_CHUNKS_SQL, index.collection, indexedGeneration, generation, generation),
+                rs -> {
+                    long id = rs.getLong("id");
+                    String sourcePath = rs.getString("source_path");
+                    String source = rs.getString("source");
+                    int chunkIndex = rs.getInt("chunk_index");
+                    String content = rs.getString("content");
+                    float[] embedding = PgVectorCodec.readVector(rs, "embedding");
+                    index.lock.writeLock().lock();
+                    try {
+                        current.add(id, sourcePath, source, chunkIndex, content, embedding);
+                    } finally {
+                        index.lock.writeLock().unlock();
+                    }
+                }
+        );
+        List<Long> retiredIds = jdbcTemplate.queryForList(
+                SELECT_RETIRED_CHUNK_IDS_SQL, Long.class, index.collection, indexedGeneration, indexedGeneration, generation);
+
+        index.lock.writeLock().lock();
+        try {
+            current.publish(retiredIds, generation);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuild(CollectionIndex index, long generation) throws IOException {
+        HnswGraph rebuilt = new HnswGraph(dimensions, m, efConstruction, 1024);
+        jdbcTemplate.query(
+                chunkQuery(SELECT_VISIBLE_CHUNKS_SQL, index.collection),
+                rs -> {
+                    rebuilt.add(
+                            rs.getLong("id"),
+                            rs.getString("source_path"),
+                            rs.getString("source"),
+                            rs.getInt("chunk_index"),
+                            rs.getString("content"),
+                            PgVectorCodec.readVector(rs, "embedding")
+                    );
+                }
+        );
+        rebuilt.publish(List.of(), generation);
+        index.swap(rebuilt);
+        save(index, rebuilt);
+        log.info("Rebuilt HNSW index of collection {} for generation {} ({} chunks).", index.collection, generation, rebuilt.liveCount());
+    }
+
+    private void save(CollectionIndex index, HnswGraph current) throws IOException {
+        // Saving only reads the graph, so queries keep running; writers are excluded by refreshLock.
+        index.lock.readLock().lock();
+        try {
+            current.save(index.path);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    private CollectionIndex index(String collection) {
+        return indexes.computeIfAbsent(collection, name -> new CollectionIndex(name, indexPath(name)));
+    }
+
+    private Path indexPath(String collection) {
+        if (RagCollections.DEFAULT.equals(collection)) {
+            return indexPath;
+        }
+        String fileName = indexPath.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String named = dot > 0
+                ? fileName.substring(0, dot) + "-" + collection + fileName.substring(dot)
+                : fileName + "-" + collection;
+        return indexPath.resolveSibling(named);
+    }
+
+    private static PreparedStatementCreator chunkQuery(String sql, String collection, long... parameters) {
+        return connection -> {
+            PgVectorCodec.registerBinaryTransfer(connection);
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setString(1, collection);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setLong(i + 2, parameters[i]);
+            }
+            statement.setFetchSize(500);
+            return statement;
+        };
+    }
+
+    /**
+     * The graph of one collection and the locks guarding it.
+     */
+    private static final class CollectionIndex {
+
+        private final String collection;
+        private final Path path;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final ReentrantLock refreshLock = new ReentrantLock();
+        private HnswGraph graph;
+
+        private CollectionIndex(String collection, Path path) {
+            this.collection = collection;
+            this.path = path;
+        }
+
+        private HnswGraph currentGraph() {
+            lock.readLock().lock();
+            try {
+                return graph;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void swap(HnswGraph replacement) {
+            lock.writeLock().lock();
+            try {
+                graph = replacement;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
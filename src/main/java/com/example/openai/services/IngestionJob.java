@@ -0,0 +1,204 @@
+package com.example.openai.services;
+
+import com.example.openai.models.RagIngestJobStatus;
+import com.example.openai.models.RagLoadResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One {@code /rag/load} run submitted through {@link IngestionJobService}. Counters are written by the
+ * loading thread and read by status requests; everything else changes only on state transitions.
+ */
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED, INTERRUPTED;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final String id;
+    private final String collection;
+    private final String path;
+    private final Instant createdAt;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long generation;
+    private volatile boolean resumable;
+    private volatile boolean cancelRequested;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile RagLoadResponse result;
+    private volatile Runnable task;
+
+    final AtomicInteger filesSeen = new AtomicInteger();
+    final AtomicInteger changedFiles = new AtomicInteger();
+    final AtomicInteger unchangedFiles = new AtomicInteger();
+    final AtomicInteger resumedFiles = new AtomicInteger();
+    final AtomicLong chunksEmbedded = new AtomicLong();
+    final AtomicLong rowsWritten = new AtomicLong();
+
+    IngestionJob(String id, String collection, String path, Instant createdAt) {
+        this.id = id;
+        this.collection = collection;
+        this.path = path;
+        this.createdAt = createdAt;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String collection() {
+        return collection;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * Generation of its collection the job writes into, or 0 before it has started.
+     */
+    public long generation() {
+        return generation;
+    }
+
+    /**
+     * Whether the rows of an unfinished run are still staged, so a resume can continue from its checkpoints.
+     */
+    public boolean resumable() {
+        return resumable;
+    }
+
+    Instant createdAt() {
+        return createdAt;
+    }
+
+    Instant startedAt() {
+        return startedAt;
+    }
+
+    Instant finishedAt() {
+        return finishedAt;
+    }
+
+    String error() {
+        return error;
+    }
+
+    Runnable task() {
+        return task;
+    }
+
+    void task(Runnable task) {
+        this.task = task;
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    boolean cancelRequested() {
+        return cancelRequested;
+    }
+
+    void checkNotCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException("Ingestion job " + id + " was cancelled.");
+        }
+    }
+
+    void queued() {
+        status = Status.QUEUED;
+        cancelRequested = false;
+        error = null;
+        result = null;
+        finishedAt = null;
+    }
+
+    void started() {
+        filesSeen.set(0);
+        changedFiles.set(0);
+        unchangedFiles.set(0);
+        resumedFiles.set(0);
+        chunksEmbedded.set(0);
+        rowsWritten.set(0);
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void generation(long generation) {
+        this.generation = generation;
+    }
+
+    void resumable(boolean resumable) {
+        this.resumable = resumable;
+    }
+
+    void completed(RagLoadResponse result) {
+        this.result = result;
+        finish(Status.COMPLETED, null);
+    }
+
+    void finish(Status finalStatus, String message) {
+        error = message;
+        finishedAt = Instant.now();
+        status = finalStatus;
+    }
+
+    /**
+     * Restores a job persisted by an earlier run of the application.
+     */
+    void restore(Status status, long generation, boolean resumable, int filesSeen, long chunksEmbedded, long rowsWritten,
+                 Instant startedAt, Instant finishedAt, String error) {
+        this.status = status;
+        this.generation = generation;
+        this.resumable = resumable;
+        this.filesSeen.set(filesSeen);
+        this.chunksEmbedded.set(chunksEmbedded);
+        this.rowsWritten.set(rowsWritten);
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public RagIngestJobStatus toStatus() {
+        Instant started = startedAt;
+        Instant finished = finishedAt;
+        long elapsedMillis = started == null ? 0 : Duration.between(started, finished != null ? finished : Instant.now()).toMillis();
+        long rows = rowsWritten.get();
+
+        RagIngestJobStatus snapshot = new RagIngestJobStatus();
+        snapshot.setJobId(id);
+        snapshot.setCollection(collection);
+        snapshot.setPath(path);
+        snapshot.setStatus(status.name());
+        snapshot.setResumable(resumable && status.isFinished() && status != Status.COMPLETED);
+        snapshot.setFilesSeen(filesSeen.get());
+        snapshot.setChangedFiles(changedFiles.get());
+        snapshot.setUnchangedFiles(unchangedFiles.get());
+        snapshot.setResumedFiles(resumedFiles.get());
+        snapshot.setChunksEmbedded(chunksEmbedded.get());
+        snapshot.setRowsWritten(rows);
+        snapshot.setRowsPerSecond(elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : 0);
+        snapshot.setElapsedMillis(elapsedMillis);
+        snapshot.setCreatedAt(createdAt);
+        snapshot.setStartedAt(started);
+        snapshot.setFinishedAt(finished);
+        snapshot.setError(error);
+        snapshot.setResult(result);
+        return snapshot;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.openai.services;
+
+import com.example.openai.models.RagIngestJobStatus;
+import com.example.openai.models.RagLoadResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@code /rag/load} in the background. Jobs wait in a queue of {@code rag.jobs.queue-capacity}
+ * and at most {@code rag.jobs.concurrency} run at once; loads into different collections run side by
+ * side, loads into the same collection take turns, because each one builds on the generation the
+ * previous one activated.
+ * <p>
+ * A job that fails, is cancelled or is cut short by a restart keeps its staged rows and checkpoints
+ * until another load starts, and can be resumed from them.
+ */
+@Service
+public class IngestionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionJobService.class);
+
+    private final RagService ragService;
+    private final IngestionJobStore jobStore;
+    private final ThreadPoolExecutor executor;
+
+    public IngestionJobService(RagService ragService,
+                               IngestionJobStore jobStore,
+                               @Value("${rag.jobs.concurrency:1}") int concurrency,
+                               @Value("${rag.jobs.queue-capacity:16}") int queueCapacity) {
+        this.ragService = ragService;
+        this.jobStore = jobStore;
+        int threads = Math.max(1, concurrency);
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofVirtual().name("rag-ingest-job-", 0).factory()
+        );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void markInterruptedJobs() {
+        int interrupted = jobStore.markInterrupted();
+        if (interrupted > 0) {
+            log.info("Marked {} ingestion job(s) left over from the previous run as INTERRUPTED.", interrupted);
+        }
+    }
+
+    public RagIngestJobStatus submit(String path, String collection) {
+        String name = RagCollections.normalize(collection);
+        Path inputPath = ragService.resolveLoadPath(path);
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), name, inputPath.toString(), Instant.now());
+        jobStore.insert(job);
+        schedule(job);
+        return job.toStatus();
+    }
+
+    public RagIngestJobStatus status(String jobId) {
+        return find(jobId).toStatus();
+    }
+
+    /**
+     * Cancels a queued job at once and a running job at its next batch. Its staged rows are kept for a resume.
+     */
+    public RagIngestJobStatus cancel(String jobId) {
+        IngestionJob job = find(jobId);
+        if (job.status().isFinished()) {
+            throw new IllegalStateException("Ingestion job " + jobId + " has already finished (" + job.status() + ").");
+        }
+        job.requestCancel();
+        if (job.task() != null && executor.remove(job.task())) {
+            job.finish(IngestionJob.Status.CANCELLED, null);
+            jobStore.update(job);
+        }
+        return job.toStatus();
+    }
+
+    /**
+     * Runs a failed, cancelled or interrupted job again. Sources it checkpointed are kept when its
+     * staged generation is still intact, which {@link RagService} checks against the database once the
+     * job holds its collection's load lock; otherwise the load starts over.
+     */
+    public RagIngestJobStatus resume(String jobId) {
+        IngestionJob job = find(jobId);
+        IngestionJob.Status status = job.status();
+        if (!status.isFinished() || status == IngestionJob.Status.COMPLETED) {
+            throw new IllegalStateException("Ingestion job " + jobId + " cannot be resumed (" + status + ").");
+        }
+        job.queued();
+        jobStore.update(job);
+        schedule(job);
+        return job.toStatus();
+    }
+
+    private IngestionJob find(String jobId) {
+        IngestionJob job = jobStore.find(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown ingestion job: " + jobId);
+        }
+        return job;
+    }
+
+    private void schedule(IngestionJob job) {
+        Runnable task = () -> run(job);
+        job.task(task);
+        jobStore.remember(job);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            job.finish(IngestionJob.Status.FAILED, "Ingestion queue is full.");
+            jobStore.update(job);
+            throw new IllegalStateException("Too many ingestion jobs are queued; try again later.", e);
+        }
+    }
+
+    private void run(IngestionJob job) {
+        if (job.cancelRequested()) {
+            job.finish(IngestionJob.Status.CANCELLED, null);
+            jobStore.update(job);
+            return;
+        }
+
+        job.started();
+        jobStore.update(job);
+        try {
+            RagLoadResponse result = ragService.load(job);
+            job.completed(result);
+        } catch (CancellationException e) {
+            job.finish(IngestionJob.Status.CANCELLED, null);
+        } catch (RuntimeException e) {
+            job.finish(IngestionJob.Status.FAILED, e.getMessage());
+            log.warn("Ingestion job {} for {} into collection {} failed: {}", job.id(), job.path(), job.collection(), e.getMessage(), e);
+        } finally {
+            jobStore.update(job);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.openai.services;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists ingestion jobs in {@code rag_ingest_jobs} and their checkpoints in
+ * {@code rag_ingest_checkpoints}, and keeps the recent jobs of this node in memory. A checkpoint is the
+ * fingerprint of a source whose rows are all committed to the job's staged generation; resuming the
+ * job keeps those rows and skips the source.
+ * <p>
+ * Only the job that started a collection's staged generation, recorded in
+ * {@code rag_collections.staging_job}, may resume it.
+ */
+@Component
+public class IngestionJobStore {
+
+    private static final int RETAINED_JOBS = 100;
+
+    private static final String INSERT_JOB_SQL = "INSERT INTO rag_ingest_jobs (id, collection, path, status, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_JOB_SQL = """
+            UPDATE rag_ingest_jobs SET
+                status = ?, generation = ?, resumable = ?, files_seen = ?, chunks_embedded = ?, rows_written = ?,
+                error = ?, started_at = ?, finished_at = ?
+            WHERE id = ?
+            """;
+    private static final String SELECT_JOB_SQL = """
+            SELECT id, collection, path, status, generation, resumable, files_seen, chunks_embedded, rows_written,
+                   error, created_at, started_at, finished_at
+            FROM rag_ingest_jobs
+            WHERE id = ?
+            """;
+    private static final String SELECT_RESUME_STATE_SQL = """
+            SELECT j.resumable, j.generation, j.checkpointed_sources, s.staging_job = j.id AS owns_generation
+            FROM rag_ingest_jobs j
+            JOIN rag_collections s ON s.name = j.collection
+            WHERE j.id = ?
+            """;
+    private static final String MARK_INTERRUPTED_SQL = """
+            UPDATE rag_ingest_jobs SET status = 'INTERRUPTED', resumable = generation IS NOT NULL, finished_at = now()
+            WHERE status IN ('QUEUED', 'RUNNING')
+            """;
+    private static final String CLEAR_RESUMABLE_SQL = """
+            UPDATE rag_ingest_jobs SET resumable = false, checkpointed_sources = 0
+            WHERE collection = ? AND (resumable OR checkpointed_sources > 0 OR id = ?)
+            """;
+    private static final String DELETE_COLLECTION_CHECKPOINTS_SQL = """
+            DELETE FROM rag_ingest_checkpoints
+            WHERE job_id IN (SELECT id FROM rag_ingest_jobs WHERE collection = ?)
+            """;
+    private static final String SET_STAGING_JOB_SQL = "UPDATE rag_collections SET staging_job = ? WHERE name = ?";
+    private static final String COUNT_CHECKPOINTS_SQL = """
+            UPDATE rag_ingest_jobs SET checkpointed_sources = (SELECT count(*) FROM rag_ingest_checkpoints WHERE job_id = ?)
+            WHERE id = ?
+            """;
+    private static final String DELETE_CHECKPOINTS_SQL = "DELETE FROM rag_ingest_checkpoints WHERE job_id = ?";
+    private static final String INSERT_CHECKPOINT_SQL = """
+            INSERT INTO rag_ingest_checkpoints (job_id, source_path, size_bytes, last_modified_ms, content_hash, chunk_count)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (job_id, source_path) DO UPDATE SET
+                size_bytes = EXCLUDED.size_bytes,
+                last_modified_ms = EXCLUDED.last_modified_ms,
+                content_hash = EXCLUDED.content_hash,
+                chunk_count = EXCLUDED.chunk_count
+            """;
+    private static final String SELECT_CHECKPOINTS_SQL = """
+            SELECT source_path, size_bytes, last_modified_ms, content_hash, chunk_count
+            FROM rag_ingest_checkpoints
+            WHERE job_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, IngestionJob> recentJobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IngestionJob> eldest) {
+            return size() > RETAINED_JOBS && eldest.getValue().status().isFinished();
+        }
+    });
+
+    public IngestionJobStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    void insert(IngestionJob job) {
+        jdbcTemplate.update(INSERT_JOB_SQL, job.id(), job.collection(), job.path(), job.status().name(), Timestamp.from(job.createdAt()));
+        remember(job);
+    }
+
+    /**
+     * Keeps {@code job} in memory, so that status requests see its live counters.
+     */
+    void remember(IngestionJob job) {
+        recentJobs.put(job.id(), job);
+    }
+
+    void update(IngestionJob job) {
+        jdbcTemplate.update(
+                UPDATE_JOB_SQL,
+                job.status().name(),
+                job.generation() > 0 ? job.generation() : null,
+                job.resumable(),
+                job.filesSeen.get(),
+                job.chunksEmbedded.get(),
+                job.rowsWritten.get(),
+                job.error(),
+                timestamp(job.startedAt()),
+                timestamp(job.finishedAt()),
+                job.id()
+        );
+    }
+
+    /**
+     * Returns the job, or {@code null} when there is no job with that id.
+     */
+    IngestionJob find(String id) {
+        IngestionJob recent = recentJobs.get(id);
+        return recent != null ? recent : load(id);
+    }
+
+    private IngestionJob load(String id) {
+        List<IngestionJob> jobs = jdbcTemplate.query(SELECT_JOB_SQL, (rs, rowNum) -> {
+            IngestionJob job = new IngestionJob(
+                    rs.getString("id"),
+                    rs.getString("collection"),
+                    rs.getString("path"),
+                    instant(rs.getTimestamp("created_at"))
+            );
+            job.restore(
+                    IngestionJob.Status.valueOf(rs.getString("status")),
+                    rs.getLong("generation"),
+                    rs.getBoolean("resumable"),
+                    rs.getInt("files_seen"),
+                    rs.getLong("chunks_embedded"),
+                    rs.getLong("rows_written"),
+                    instant(rs.getTimestamp("started_at")),
+                    instant(rs.getTimestamp("finished_at")),
+                    rs.getString("error")
+            );
+            return job;
+        }, id);
+        return jobs.isEmpty() ? null : jobs.get(0);
+    }
+
+    /**
+     * Marks jobs that were queued or running when the application stopped. Returns how many there were.
+     */
+    int markInterrupted() {
+        return jdbcTemplate.update(MARK_INTERRUPTED_SQL);
+    }
+
+    /**
+     * What the database says about the staged rows of job {@code id}. Read under the collection's load
+     * lock, so no other load of the collection can change it in between.
+     */
+    ResumeState resumeState(String id) {
+        List<ResumeState> states = jdbcTemplate.query(SELECT_RESUME_STATE_SQL, (rs, rowNum) -> new ResumeState(
+                rs.getBoolean("resumable"),
+                rs.getLong("generation"),
+                rs.getBoolean("owns_generation"),
+                rs.getInt("checkpointed_sources")
+        ), id);
+        return states.isEmpty() ? ResumeState.NONE : states.get(0);
+    }
+
+    /**
+     * Called when {@code job} starts a new generation, which discards the staged rows and checkpoints of
+     * every job of the same collection, including earlier runs of {@code job} itself, and makes
+     * {@code job} the only one that may resume the generation.
+     */
+    void startGeneration(IngestionJob job) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_COLLECTION_CHECKPOINTS_SQL, job.collection());
+            jdbcTemplate.update(CLEAR_RESUMABLE_SQL, job.collection(), job.id());
+            jdbcTemplate.update(SET_STAGING_JOB_SQL, job.id(), job.collection());
+        });
+        synchronized (recentJobs) {
+            for (IngestionJob other : recentJobs.values()) {
+                if (other != job && other.collection().equals(job.collection())) {
+                    other.resumable(false);
+                }
+            }
+        }
+    }
+
+    void saveCheckpoints(String jobId, List<TrackedSource> sources) {
+        if (sources.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                INSERT_CHECKPOINT_SQL,
+                sources,
+                200,
+                (ps, source) -> {
+                    ps.setString(1, jobId);
+                    ps.setString(2, source.sourcePath());
+                    ps.setLong(3, source.sizeBytes());
+                    ps.setLong(4, source.lastModifiedMs());
+                    ps.setString(5, source.contentHash());
+                    ps.setInt(6, source.chunkCount());
+                }
+        );
+        // Counted after the rows are in, so a crash in between only leaves extra checkpoints, never missing ones.
+        jdbcTemplate.update(COUNT_CHECKPOINTS_SQL, jobId, jobId);
+    }
+
+    Map<String, TrackedSource> checkpoints(String jobId) {
+        Map<String, TrackedSource> sources = new HashMap<>();
+        jdbcTemplate.query(SELECT_CHECKPOINTS_SQL, rs -> {
+            TrackedSource source = new TrackedSource(
+                    rs.getString("source_path"),
+                    rs.getLong("size_bytes"),
+                    rs.getLong("last_modified_ms"),
+                    rs.getString("content_hash"),
+                    rs.getInt("chunk_count")
+            );
+            sources.put(source.sourcePath(), source);
+        }, jobId);
+        return sources;
+    }
+
+    void deleteCheckpoints(String jobId) {
+        jdbcTemplate.update(DELETE_CHECKPOINTS_SQL, jobId);
+        jdbcTemplate.update(COUNT_CHECKPOINTS_SQL, jobId, jobId);
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return instant == null ? null : Timestamp.from(instant);
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    /**
+     * Persisted resume state of one job.
+     *
+     * @param resumable            whether the job stopped with its rows staged
+     * @param generation           generation the job staged its rows in
+     * @param ownsGeneration       whether the job is the last one to have started a generation of its collection
+     * @param checkpointedSources  how many checkpoints the job saved
+     */
+    record ResumeState(boolean resumable, long generation, boolean ownsGeneration, int checkpointedSources) {
+
+        static final ResumeState NONE = new ResumeState(false, 0, false, 0);
+
+        /**
+         * Whether a run of the job may continue its staged generation, given the collection's active
+         * generation and the checkpoints found for the job. Anything else starts the load over.
+         */
+        boolean resumes(long activeGeneration, int checkpointsFound) {
+            return resumable
+                    && ownsGeneration
+                    && generation == activeGeneration + 1
+                    && checkpointsFound >= checkpointedSources;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.openai.services;
+
+import com.example.openai.models.MediaJobStatus;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One image or speech generation submitted through {@link MediaJobService}. Fields change only on
+ * state transitions and are read by status requests.
+ */
+public class MediaJob {
+
+    public enum Kind {
+        IMAGE, SPEECH
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED;
+        }
+    }
+
+    private final String id;
+    private final Kind kind;
+    private final String prompt;
+    private final Instant createdAt;
+    private final UpstreamGovernor.Priority priority;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Path artifact;
+
+    MediaJob(String id, Kind kind, String prompt, Instant createdAt, UpstreamGovernor.Priority priority) {
+        this.id = id;
+        this.kind = kind;
+        this.prompt = prompt;
+        this.createdAt = createdAt;
+        this.priority = priority;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    String prompt() {
+        return prompt;
+    }
+
+    /**
+     * Priority of the job's provider call: bulk for queued jobs, interactive for synchronous requests.
+     */
+    UpstreamGovernor.Priority priority() {
+        return priority;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * File the generated media was saved to, or {@code null} until the job has completed.
+     */
+    public Path artifact() {
+        return artifact;
+    }
+
+    String error() {
+        return error;
+    }
+
+    /**
+     * Waits until the job has completed or failed; {@code false} if it has not within {@code timeout}.
+     */
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    /**
+     * Time the job spent queued, up to now while it still waits.
+     */
+    long waitMillis() {
+        Instant started = startedAt;
+        return Duration.between(createdAt, started != null ? started : Instant.now()).toMillis();
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void completed(Path artifact) {
+        this.artifact = artifact;
+        finish(Status.COMPLETED, null);
+    }
+
+    void finish(Status finalStatus, String message) {
+        error = message;
+        finishedAt = Instant.now();
+        status = finalStatus;
+        finished.countDown();
+    }
+
+    public MediaJobStatus toStatus() {
+        Instant started = startedAt;
+        Instant finished = finishedAt;
+        Status current = status;
+
+        MediaJobStatus snapshot = new MediaJobStatus();
+        snapshot.setJobId(id);
+        snapshot.setKind(kind.name());
+        snapshot.setPrompt(prompt);
+        snapshot.setStatus(current.name());
+        snapshot.setWaitMillis(waitMillis());
+        snapshot.setRunMillis(started == null ? 0 : Duration.between(started, finished != null ? finished : Instant.now()).toMillis());
+        snapshot.setCreatedAt(createdAt);
+        snapshot.setStartedAt(started);
+        snapshot.setFinishedAt(finished);
+        snapshot.setError(error);
+        snapshot.setResultUrl(current == Status.COMPLETED ? "/media/jobs/" + id + "/result" : null);
+        return snapshot;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.openai.services;
+
+import com.example.openai.models.MediaJobStatus;
+import com.example.openai.models.MediaQueueStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs {@code /image} and {@code /speech} generations in the background, so a request returns a job
+ * id at once instead of holding its connection for the whole generation. Each kind has its own
+ * executor of virtual threads: at most {@code media.jobs.<kind>.concurrency} generations of a kind run
+ * at once and up to {@code media.jobs.queue-capacity} more wait, so a burst of slow image jobs never
+ * delays speech. Submissions beyond that are refused rather than queued without bound. Their provider
+ * calls are bulk work for the {@link UpstreamGovernor}, so interactive requests go first.
+ * <p>
+ * The synchronous {@code /image} and {@code /speech} go through the same lanes with {@link #generate}:
+ * their job's provider call is interactive, and the request waits up to {@code media.jobs.wait-seconds}
+ * for it.
+ * <p>
+ * Jobs live in memory; the {@value #RETAINED_JOBS} most recent finished ones stay available with
+ * their saved files.
+ */
+@Service
+public class MediaJobService implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaJobService.class);
+    private static final int RETAINED_JOBS = 500;
+
+    private final OpenAiChatService chatService;
+    private final int queueCapacity;
+    private final long waitSeconds;
+    private final Map<MediaJob.Kind, Lane> lanes = new EnumMap<>(MediaJob.Kind.class);
+    private final Map<String, MediaJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MediaJob> eldest) {
+            return size() > RETAINED_JOBS && eldest.getValue().status().isFinished();
+        }
+    });
+
+    public MediaJobService(OpenAiChatService chatService,
+                           @Value("${media.jobs.image.concurrency:2}") int imageConcurrency,
+                           @Value("${media.jobs.speech.concurrency:4}") int speechConcurrency,
+                           @Value("${media.jobs.queue-capacity:64}") int queueCapacity,
+                           @Value("${media.jobs.wait-seconds:180}") long waitSeconds) {
+        this.chatService = chatService;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.waitSeconds = Math.max(1, waitSeconds);
+        lanes.put(MediaJob.Kind.IMAGE, new Lane("media-image-job-", imageConcurrency, this.queueCapacity));
+        lanes.put(MediaJob.Kind.SPEECH, new Lane("media-speech-job-", speechConcurrency, this.queueCapacity));
+    }
+
+    public MediaJobStatus submit(MediaJob.Kind kind, String prompt) {
+        return enqueue(kind, prompt, UpstreamGovernor.Priority.BULK).toStatus();
+    }
+
+    /**
+     * Runs a generation in its kind's lane with an interactive provider call and returns the saved file.
+     * Fails with an {@link IllegalStateException} when the lane is full, the generation fails, or it has
+     * not finished within {@code media.jobs.wait-seconds}; in that case it keeps running as a job.
+     */
+    public Path generate(MediaJob.Kind kind, String prompt) throws InterruptedException {
+        MediaJob job = enqueue(kind, prompt, UpstreamGovernor.Priority.INTERACTIVE);
+        String name = kind.name().charAt(0) + kind.name().substring(1).toLowerCase(Locale.ROOT);
+        if (!job.await(waitSeconds, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(name + " job " + job.id() + " did not finish within " + waitSeconds
+                    + " seconds; check GET /media/jobs/" + job.id() + ".");
+        }
+        if (job.status() != MediaJob.Status.COMPLETED) {
+            throw new IllegalStateException(name + " generation failed: " + job.error());
+        }
+        return job.artifact();
+    }
+
+    private MediaJob enqueue(MediaJob.Kind kind, String prompt, UpstreamGovernor.Priority priority) {
+        if (prompt == null || prompt.isBlank()) {
+            throw new IllegalArgumentException("prompt must not be blank.");
+        }
+        MediaJob job = new MediaJob(UUID.randomUUID().toString(), kind, prompt, Instant.now(), priority);
+        Lane lane = lanes.get(kind);
+        jobs.put(job.id(), job);
+        try {
+            lane.executor.execute(() -> run(lane, job));
+        } catch (RejectedExecutionException e) {
+            lane.rejected.increment();
+            job.finish(MediaJob.Status.FAILED, "Media queue is full.");
+            throw new IllegalStateException("Too many " + kind.name().toLowerCase(Locale.ROOT) + " jobs are queued; try again later.", e);
+        }
+        lane.submitted.increment();
+        return job;
+    }
+
+    public MediaJobStatus status(String jobId) {
+        return find(jobId).toStatus();
+    }
+
+    /**
+     * Saved file of a completed job. Fails while the job is still queued or running, or when it failed.
+     */
+    public Path result(String jobId) {
+        MediaJob job = find(jobId);
+        if (job.status() != MediaJob.Status.COMPLETED) {
+            throw new IllegalStateException("Media job " + jobId + " has no result (" + job.status() + ").");
+        }
+        Path artifact = job.artifact();
+        if (!Files.isRegularFile(artifact)) {
+            throw new IllegalStateException("Result of media job " + jobId + " is no longer on disk.");
+        }
+        return artifact;
+    }
+
+    /**
+     * Queue depth, throughput and queue wait per kind.
+     */
+    public List<MediaQueueStats> stats() {
+        return lanes.entrySet().stream()
+                .map(entry -> entry.getValue().stats(entry.getKey(), queueCapacity))
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        lanes.values().forEach(lane -> lane.executor.shutdownNow());
+    }
+
+    private MediaJob find(String jobId) {
+        MediaJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown media job: " + jobId);
+        }
+        return job;
+    }
+
+    private void run(Lane lane, MediaJob job) {
+        job.started();
+        lane.recordWait(job.waitMillis());
+        try {
+            Path artifact = job.kind() == MediaJob.Kind.IMAGE
+                    ? chatService.createImage(job.prompt(), job.priority())
+                    : chatService.createSpeech(job.prompt(), job.priority());
+            job.completed(artifact);
+            lane.completed.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(lane, job, "Interrupted.", e);
+        } catch (IOException | RuntimeException e) {
+            fail(lane, job, e.getMessage(), e);
+        }
+    }
+
+    private void fail(Lane lane, MediaJob job, String message, Exception e) {
+        job.finish(MediaJob.Status.FAILED, message);
+        lane.failed.increment();
+        log.warn("Media job {} ({}) failed: {}", job.id(), job.kind(), message, e);
+    }
+
+    /**
+     * Executor and counters of one kind of media job.
+     */
+    private static final class Lane {
+
+        private final ThreadPoolExecutor executor;
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder started = new LongAdder();
+        private final LongAdder totalWaitMillis = new LongAdder();
+        private final AtomicLong maxWaitMillis = new AtomicLong();
+
+        private Lane(String threadPrefix, int concurrency, int queueCapacity) {
+            int threads = Math.max(1, concurrency);
+            this.executor = new ThreadPoolExecutor(
+                    threads,
+                    threads,
+                    0,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    Thread.ofVirtual().name(threadPrefix, 0).factory()
+            );
+        }
+
+        private void recordWait(long waitMillis) {
+            started.increment();
+            totalWaitMillis.add(waitMillis);
+            maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+        }
+
+        private MediaQueueStats stats(MediaJob.Kind kind, int queueCapacity) {
+            long startedJobs = started.sum();
+            return new MediaQueueStats(
+                    kind.name(),
+                    executor.getMaximumPoolSize(),
+                    queueCapacity,
+                    executor.getQueue().size(),
+                    executor.getActiveCount(),
+                    submitted.sum(),
+                    rejected.sum(),
+                    completed.sum(),
+                    failed.sum(),
+                    startedJobs == 0 ? 0 : totalWaitMillis.sum() / startedJobs,
+                    maxWaitMillis.get()
+            );
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.openai.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Moves generated images and audio from the provider to disk. All requests share one HTTP/2
+ * {@link HttpClient}, so connections and TLS sessions are pooled across requests, and its callbacks run on
+ * virtual threads. Response bodies are written straight to a temporary file next to the target and
+ * renamed into place once complete, so memory per download does not grow with the file and a failed
+ * download never leaves a partial file under the final name.
+ */
+@Component
+public class MediaTransport implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    public MediaTransport(@Value("${media.http.connect-timeout-seconds:10}") long connectTimeoutSeconds,
+                          @Value("${media.http.request-timeout-seconds:120}") long requestTimeoutSeconds) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(Math.max(1, connectTimeoutSeconds)))
+                .executor(executor)
+                .build();
+        this.requestTimeout = Duration.ofSeconds(Math.max(1, requestTimeoutSeconds));
+    }
+
+    /**
+     * Request builder with the transport's request timeout applied.
+     */
+    public HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(requestTimeout);
+    }
+
+    /**
+     * Downloads {@code url} to {@code target}.
+     */
+    public Path download(String url, Path target) throws IOException, InterruptedException {
+        return download(request(URI.create(url)).GET().build(), target);
+    }
+
+    /**
+     * Sends {@code request} and streams a successful response body to {@code target}. A response with
+     * status 400 or above fails with an {@link UpstreamHttpException}.
+     */
+    public Path download(HttpRequest request, Path target) throws IOException, InterruptedException {
+        Path partial = partialFile(target);
+        try {
+            HttpResponse<Path> response = httpClient.send(request, HttpResponse.BodyHandlers.ofFile(partial));
+            if (response.statusCode() >= 400) {
+                throw new UpstreamHttpException(response.statusCode(), response.headers().firstValue("Retry-After").orElse(null));
+            }
+            return moveIntoPlace(partial, target);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Sends {@code request} and returns its body as a {@link Relay} that copies it to a client and to
+     * {@code copyTarget} at once. A response with status 400 or above fails with an {@link UpstreamHttpException}.
+     */
+    public Relay open(HttpRequest request, Path copyTarget) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() >= 400) {
+            response.body().close();
+            throw new UpstreamHttpException(response.statusCode(), response.headers().firstValue("Retry-After").orElse(null));
+        }
+        return new Relay(response, copyTarget);
+    }
+
+    /**
+     * Decodes base64 {@code data} to {@code target} through a small buffer instead of materializing the
+     * decoded bytes.
+     */
+    public Path writeBase64(CharSequence data, Path target) throws IOException {
+        Path partial = partialFile(target);
+        try (InputStream decoded = Base64.getMimeDecoder().wrap(new AsciiInputStream(data))) {
+            Files.copy(decoded, partial, StandardCopyOption.REPLACE_EXISTING);
+            return moveIntoPlace(partial, target);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    @Override
+    public void close() {
+        httpClient.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private static Path partialFile(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, "." + target.getFileName(), ".part");
+    }
+
+    private static Path moveIntoPlace(Path partial, Path target) throws IOException {
+        try {
+            return Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            return Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * An upstream response body on its way to a client. {@link #transferTo} reads the next chunk only
+     * after the previous one was written and flushed to the client, so a slow client slows the upstream
+     * read instead of filling memory. Every chunk also goes to a temporary file that becomes the copy
+     * once the body is complete; if the transfer fails the copy is discarded.
+     */
+    public static final class Relay {
+
+        private static final int CHUNK_BYTES = 16 * 1024;
+
+        private final HttpResponse<InputStream> response;
+        private final Path copyTarget;
+
+        private Relay(HttpResponse<InputStream> response, Path copyTarget) {
+            this.response = response;
+            this.copyTarget = copyTarget;
+        }
+
+        /**
+         * {@code Content-Type} of the upstream response, or {@code null} when it sent none.
+         */
+        public String contentType() {
+            return response.headers().firstValue("Content-Type").orElse(null);
+        }
+
+        public Path copyTarget() {
+            return copyTarget;
+        }
+
+        public void transferTo(OutputStream client) throws IOException {
+            Path partial = partialFile(copyTarget);
+            try (InputStream body = response.body();
+                 OutputStream copy = Files.newOutputStream(partial)) {
+                byte[] buffer = new byte[CHUNK_BYTES];
+                int read;
+                while ((read = body.read(buffer)) >= 0) {
+                    client.write(buffer, 0, read);
+                    client.flush();
+                    copy.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(partial);
+                throw e;
+            }
+            moveIntoPlace(partial, copyTarget);
+        }
+    }
+
+    /**
+     * Reads the characters of an ASCII {@link CharSequence}, such as base64 text, as bytes without copying it.
+     */
+    private static final class AsciiInputStream extends InputStream {
+
+        private final CharSequence data;
+        private int position;
+
+        private AsciiInputStream(CharSequence data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length() ? data.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int remaining = data.length() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = Math.min(length, remaining);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) data.charAt(position++);
+            }
+            return count;
+        }
+    }
+}
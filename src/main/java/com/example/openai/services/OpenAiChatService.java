@@ -1,48 +1,56 @@
 package com.example.openai.services;
 
 import com.example.openai.models.CelebrityDetails;
+import com.example.openai.models.CompletionCacheStats;
+import com.example.openai.models.EmbeddingCacheStats;
 import com.example.openai.models.TemplateChatResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.image.ImageModel;
 import org.springframework.ai.image.ImagePrompt;
 import org.springframework.ai.image.ImageResponse;
 import org.springframework.ai.openai.OpenAiImageOptions;
 import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class OpenAiChatService {
 
     private ChatClient chatClient;
-    private EmbeddingModel embeddingModel;
+    private EmbeddingCache embeddingCache;
+    private EmbeddingCoalescer embeddingCoalescer;
+    private CompletionCache completionCache;
     private ImageModel imageModel;
-    private JdbcTemplate jdbcTemplate;
     private ObjectMapper objectMapper;
     private CelebrityTools celebrityTools;
+    private StructuredOutputRegistry structuredOutputs;
+    private MediaTransport mediaTransport;
+    private UpstreamGovernor upstreamGovernor;
 
-    private static final String CELEBRITY_DETAILS_SCHEMA = """
+    private static final String IMAGE_MODEL = "gpt-image-1";
+
+    static final String CELEBRITY_DETAILS = "celebrity-details";
+    static final String TEMPLATE_CHAT = "template-chat";
+
+    static final String CELEBRITY_DETAILS_SCHEMA = """
                     {
                         "$schema": "https://json-schema.org/draft/2020-12/schema",
                         "type": "object",
@@ -85,9 +93,31 @@ public class OpenAiChatService {
                     }
                     """;
 
+    static final String TEMPLATE_CHAT_SCHEMA = """
+                    {
+                        "$schema": "https://json-schema.org/draft/2020-12/schema",
+                        "type": "object",
+                        "required": ["bulletPoints", "practicalExample"],
+                        "properties": {
+                            "topic": {"type": "string"},
+                            "audience": {"type": "string"},
+                            "tone": {"type": "string"},
+                            "bulletPoints": {
+                                "type": "array",
+                                "items": {"type": "string"},
+                                "minItems": 1
+                            },
+                            "practicalExample": {"type": "string"}
+                        }
+                    }
+                    """;
+
     @Value("${spring.ai.openai.api-key:}")
     private String openAiApiKey;
 
+    @Value("${spring.ai.openai.chat.options.model:gpt-4o-mini}")
+    private String chatModel;
+
     @Value("${spring.ai.openai.audio.speech.options.model:gpt-4o-mini-tts}")
     private String ttsModel;
 
@@ -97,20 +127,33 @@ public class OpenAiChatService {
     @Value("${spring.ai.openai.audio.speech.options.response-format:mp3}")
     private String ttsResponseFormat;
 
+    @Value("${embed.timeout-seconds:120}")
+    private long embedTimeoutSeconds;
+
 
 
     public OpenAiChatService (ChatClient.Builder chatClientBuilder,
-                              EmbeddingModel embeddingModel,
+                              EmbeddingCache embeddingCache,
+                              EmbeddingCoalescer embeddingCoalescer,
+                              CompletionCache completionCache,
                               ImageModel imageModel,
-                              JdbcTemplate jdbcTemplate,
                               ObjectMapper objectMapper,
-                              CelebrityTools celebrityTools) {
+                              CelebrityTools celebrityTools,
+                              StructuredOutputRegistry structuredOutputs,
+                              MediaTransport mediaTransport,
+                              UpstreamGovernor upstreamGovernor) {
         this.chatClient = chatClientBuilder.build();
-        this.embeddingModel = embeddingModel;
+        this.embeddingCache = embeddingCache;
+        this.embeddingCoalescer = embeddingCoalescer;
+        this.completionCache = completionCache;
         this.imageModel = imageModel;
-        this.jdbcTemplate = jdbcTemplate;
         this.objectMapper = objectMapper;
         this.celebrityTools = celebrityTools;
+        this.structuredOutputs = structuredOutputs;
+        this.mediaTransport = mediaTransport;
+        this.upstreamGovernor = upstreamGovernor;
+        structuredOutputs.register(CELEBRITY_DETAILS, CELEBRITY_DETAILS_SCHEMA);
+        structuredOutputs.register(TEMPLATE_CHAT, TEMPLATE_CHAT_SCHEMA);
     }
 
     /**
@@ -119,19 +162,27 @@ public class OpenAiChatService {
      * @return
      */
     public String chatCompletion(String message) {
-        var response = chatClient
-                .prompt()
-                .user(message)
-                .call()
-                .chatResponse();
+        String content = completionCache.complete("chat", null, message, () -> {
+            var response = upstreamGovernor.call(chatModel, UpstreamGovernor.Priority.INTERACTIVE, upstreamGovernor.chatTokens(message),
+                    () -> chatClient
+                            .prompt()
+                            .user(message)
+                            .call()
+                            .chatResponse());
+
+            if (response == null ||
+                    response.getResult() == null ||
+                    response.getResult().getOutput() == null) {
+                return null;
+            }
+            String text = response.getResult().getOutput().getText();
+            return text == null ? "" : text;
+        });
 
-        if (response == null ||
-                response.getResult() == null ||
-                response.getResult().getOutput() == null) {
+        if (content == null) {
             return "No output returned by model.";
         }
-        var content = response.getResult().getOutput().getText();
-        if (content == null || content.isBlank()) {
+        if (content.isBlank()) {
             return "Model returned empty content.";
         }
         return content;
@@ -154,21 +205,30 @@ public class OpenAiChatService {
             topic (string), audience (string), tone (string),
             bulletPoints (array of 5 strings), practicalExample (string).
             Do not add markdown, code fences, or extra keys.
-            """;
+            JSON must strictly match this schema:
+            """ + structuredOutputs.schema(TEMPLATE_CHAT);
 
         PromptTemplate userTemplate = new PromptTemplate("""
                 Explain {topic} for {audience} in a {tone} tone.
                 Generate exactly 5 concise bullet points and one practical example.
             """);
 
-        TemplateChatResponse response = chatClient
-                .prompt()
-                .system(systemMessage)
-                .user(userTemplate.render(variables))
-                .call()
-                .entity(TemplateChatResponse.class);
+        String userMessage = userTemplate.render(variables);
+        String llmJson = completionCache.complete(TEMPLATE_CHAT, systemMessage, userMessage, () -> {
+            String output = upstreamGovernor.call(chatModel, UpstreamGovernor.Priority.INTERACTIVE, upstreamGovernor.chatTokens(systemMessage, userMessage),
+                    () -> chatClient
+                            .prompt()
+                            .system(systemMessage)
+                            .user(userMessage)
+                            .call()
+                            .content());
+            if (output != null && !output.isBlank()) {
+                structuredOutputs.validate(TEMPLATE_CHAT, output);
+            }
+            return output;
+        });
 
-        if (response == null) {
+        if (llmJson == null || llmJson.isBlank()) {
             TemplateChatResponse fallback = new TemplateChatResponse();
             fallback.setTopic(safeTopic);
             fallback.setAudience(safeAudience);
@@ -178,6 +238,8 @@ public class OpenAiChatService {
             return fallback;
         }
 
+        TemplateChatResponse response = structuredOutputs.read(TEMPLATE_CHAT, llmJson, TemplateChatResponse.class);
+
         if (response.getTopic() == null || response.getTopic().isBlank()) {
             response.setTopic(safeTopic);
         }
@@ -187,10 +249,7 @@ public class OpenAiChatService {
         if (response.getTone() == null || response.getTone().isBlank()) {
             response.setTone(safeTone);
         }
-        if (response.getBulletPoints() == null) {
-            response.setBulletPoints(new ArrayList<>());
-        }
-        if (response.getPracticalExample() == null || response.getPracticalExample().isBlank()) {
+        if (response.getPracticalExample().isBlank()) {
             response.setPracticalExample("No practical example returned.");
         }
 
@@ -198,25 +257,28 @@ public class OpenAiChatService {
     }
 
     public Flux<String> chatCompletionStream(String message) {
-        return chatClient
-                .prompt()
-                .user(message)
-                .stream()
-                .content();
+        return upstreamGovernor.stream(chatModel, UpstreamGovernor.Priority.INTERACTIVE, upstreamGovernor.chatTokens(message),
+                () -> chatClient
+                        .prompt()
+                        .user(message)
+                        .stream()
+                        .content());
     }
 
         public String chatWithTools(String message) {
-        return chatClient
-            .prompt()
-            .system("""
-                You can call tools to answer celebrity-related questions.
-                Use tools when the user asks for profession or birth year.
-                If tool returns Unknown, clearly say data is unavailable.
-                """)
-            .user(message)
-            .tools(celebrityTools)
-            .call()
-            .content();
+        // The tool-calling round trips of one request are admitted as a single call.
+        return upstreamGovernor.call(chatModel, UpstreamGovernor.Priority.INTERACTIVE, upstreamGovernor.chatTokens(message),
+            () -> chatClient
+                .prompt()
+                .system("""
+                    You can call tools to answer celebrity-related questions.
+                    Use tools when the user asks for profession or birth year.
+                    If tool returns Unknown, clearly say data is unavailable.
+                    """)
+                .user(message)
+                .tools(celebrityTools)
+                .call()
+                .content());
         }
 
     public CelebrityDetails celebrityDetails(String name) {
@@ -226,207 +288,141 @@ public class OpenAiChatService {
                 You are a factual assistant.
                 Return ONLY valid JSON. Do not include markdown or code fences.
                 JSON must strictly match this schema:
-                """ + CELEBRITY_DETAILS_SCHEMA;
+                """ + structuredOutputs.schema(CELEBRITY_DETAILS);
 
         String userMessage = "Provide concise biographical details for: " + safeName;
 
-        String llmJson = chatClient
-                .prompt()
-                .system(systemMessage)
-                .user(userMessage)
-                .call()
-                .content();
-
-        if (llmJson == null || llmJson.isBlank()) {
-            throw new IllegalArgumentException("Model returned empty content.");
-        }
-
-        try {
-            JsonNode outputNode = objectMapper.readTree(llmJson);
-            validateCelebritySchema(outputNode);
-            CelebrityDetails details = objectMapper.treeToValue(outputNode, CelebrityDetails.class);
-            if (details.getName() == null || details.getName().isBlank()) {
-                details.setName(safeName);
-            }
-            return details;
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException("Model response is not valid JSON.", e);
+        String llmJson = completionCache.complete(CELEBRITY_DETAILS, systemMessage, userMessage, () -> {
+            String output = upstreamGovernor.call(chatModel, UpstreamGovernor.Priority.INTERACTIVE, upstreamGovernor.chatTokens(systemMessage, userMessage),
+                    () -> chatClient
+                            .prompt()
+                            .system(systemMessage)
+                            .user(userMessage)
+                            .call()
+                            .content());
+            structuredOutputs.validate(CELEBRITY_DETAILS, output);
+            return output;
+        });
+
+        CelebrityDetails details = structuredOutputs.read(CELEBRITY_DETAILS, llmJson, CelebrityDetails.class);
+        if (details.getName() == null || details.getName().isBlank()) {
+            details.setName(safeName);
         }
+        return details;
     }
 
-    private void validateCelebritySchema(JsonNode outputNode) throws JsonProcessingException {
-        JsonNode schemaNode = objectMapper.readTree(CELEBRITY_DETAILS_SCHEMA);
-
-        if (!outputNode.isObject()) {
-            throw new IllegalArgumentException("LLM output failed JSON schema validation: expected JSON object.");
-        }
-
-        JsonNode required = schemaNode.path("required");
-        if (required.isArray()) {
-            for (JsonNode requiredField : required) {
-                String fieldName = requiredField.asText();
-                if (!outputNode.has(fieldName) || outputNode.get(fieldName).isNull()) {
-                    throw new IllegalArgumentException("LLM output failed JSON schema validation: missing required field '" + fieldName + "'.");
-                }
-            }
-        }
-
-        JsonNode properties = schemaNode.path("properties");
-        if (!properties.isObject()) {
-            throw new IllegalArgumentException("LLM output failed JSON schema validation: invalid schema properties.");
-        }
-
-        if (schemaNode.path("additionalProperties").isBoolean() && !schemaNode.path("additionalProperties").asBoolean()) {
-            HashSet<String> allowedFields = new HashSet<>();
-            properties.fieldNames().forEachRemaining(allowedFields::add);
-            outputNode.fieldNames().forEachRemaining(field -> {
-                if (!allowedFields.contains(field)) {
-                    throw new IllegalArgumentException("LLM output failed JSON schema validation: additional field '" + field + "' is not allowed.");
-                }
-            });
-        }
-
-        validateCelebrityField(outputNode, properties, "name");
-        validateCelebrityField(outputNode, properties, "profession");
-        validateCelebrityField(outputNode, properties, "nationality");
-        validateCelebrityField(outputNode, properties, "birthDate");
-        validateCelebrityField(outputNode, properties, "knownFor");
-        validateCelebrityField(outputNode, properties, "notableWorks");
-        validateCelebrityField(outputNode, properties, "awards");
-        validateCelebrityField(outputNode, properties, "summary");
+    public CompletionCacheStats completionCacheStats() {
+        return completionCache.stats();
     }
 
-    private void validateCelebrityField(JsonNode outputNode, JsonNode properties, String fieldName) {
-        JsonNode schemaField = properties.path(fieldName);
-        JsonNode valueNode = outputNode.path(fieldName);
-        String expectedType = schemaField.path("type").asText();
-
-        if ("string".equals(expectedType)) {
-            if (!valueNode.isTextual()) {
-                throw new IllegalArgumentException("LLM output failed JSON schema validation: field '" + fieldName + "' must be string.");
-            }
-            int minLength = schemaField.path("minLength").asInt(0);
-            if (valueNode.asText().trim().length() < minLength) {
-                throw new IllegalArgumentException("LLM output failed JSON schema validation: field '" + fieldName + "' is shorter than minLength.");
-            }
-            return;
-        }
-
-        if ("array".equals(expectedType)) {
-            if (!valueNode.isArray()) {
-                throw new IllegalArgumentException("LLM output failed JSON schema validation: field '" + fieldName + "' must be array.");
-            }
-            int size = valueNode.size();
-            int minItems = schemaField.path("minItems").asInt(0);
-            int maxItems = schemaField.path("maxItems").asInt(Integer.MAX_VALUE);
-            if (size < minItems || size > maxItems) {
-                throw new IllegalArgumentException("LLM output failed JSON schema validation: field '" + fieldName + "' item count out of range.");
-            }
-            for (JsonNode item : valueNode) {
-                if (!item.isTextual()) {
-                    throw new IllegalArgumentException("LLM output failed JSON schema validation: all items in '" + fieldName + "' must be strings.");
-                }
-            }
-        }
+    public EmbeddingCacheStats embeddingCacheStats() {
+        return embeddingCache.stats();
     }
 
+    /**
+     * Embeds {@code content} and stores it in {@code documents}, batched with concurrent requests.
+     */
     public float[] saveDocumentWithEmbedding(String content) {
-        float[] embedding = embeddingModel.embed(content);
-        // Convert float[] to PostgreSQL vector literal: '[1.0,2.0,...]'
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < embedding.length; i++) {
-            sb.append(embedding[i]);
-            if (i < embedding.length - 1) sb.append(",");
+        CompletableFuture<float[]> embedding = embeddingCoalescer.submit(content);
+        try {
+            return embedding.get(embedTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Embedding failed.", e.getCause());
+        } catch (TimeoutException e) {
+            embedding.cancel(false);
+            throw new IllegalStateException("Embedding did not finish within " + embedTimeoutSeconds + " seconds.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the embedding.", e);
         }
-        sb.append("]");
-        String embeddingLiteral = sb.toString();
-
-        String sql = "INSERT INTO documents (content, embedding) VALUES (?, ?::vector)";
-        jdbcTemplate.update(sql, content, embeddingLiteral);
-        return embedding;
     }
 
-    public String generateImage(String prompt) {
-        ImageResponse response = imageModel.call(
+    /**
+     * Generates an image for {@code prompt} and returns the file it was saved to. Fails with an
+     * {@link IllegalStateException} when the model returns no image.
+     */
+    public Path createImage(String prompt, UpstreamGovernor.Priority priority) throws IOException, InterruptedException {
+        ImageResponse response = upstreamGovernor.call(IMAGE_MODEL, priority, 0, () -> imageModel.call(
                 new ImagePrompt(
                         prompt,
                         OpenAiImageOptions.builder()
-                    .model("gpt-image-1")
+                    .model(IMAGE_MODEL)
                                 .build()
                 )
-        );
+        ));
 
         if (response == null || response.getResult() == null || response.getResult().getOutput() == null) {
-            return "No image returned by model.";
+            throw new IllegalStateException("No image returned by model.");
         }
         String url = response.getResult().getOutput().getUrl();
         String b64Json = response.getResult().getOutput().getB64Json();
         if ((url == null || url.isBlank()) && (b64Json == null || b64Json.isBlank())) {
-            return "Image URL or base64 data not returned by model.";
+            throw new IllegalStateException("Image URL or base64 data not returned by model.");
         }
 
-        String safeName = toSafeFilename(prompt);
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String fileName = safeName + "_" + timestamp + ".png";
-        Path outputDir = Paths.get("generated-images");
-        Path outputPath = outputDir.resolve(fileName);
+        Path outputPath = outputPath("generated-images", prompt, ".png");
 
-        try {
-            Files.createDirectories(outputDir);
-            if (url != null && !url.isBlank()) {
-                HttpClient client = HttpClient.newHttpClient();
-                HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
-                HttpResponse<byte[]> httpResponse = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
-                Files.write(outputPath, httpResponse.body());
-            } else {
-                byte[] imageBytes = Base64.getDecoder().decode(b64Json);
-                Files.write(outputPath, imageBytes);
-            }
-            return "Saved image to: " + outputPath.toAbsolutePath();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return "Failed to save image: " + e.getMessage();
-        } catch (IOException e) {
-            return "Failed to save image: " + e.getMessage();
+        if (url != null && !url.isBlank()) {
+            return mediaTransport.download(url, outputPath);
+        }
+        return mediaTransport.writeBase64(b64Json, outputPath);
+    }
+
+    /**
+     * Synthesizes {@code prompt} and returns the file the audio was saved to. Fails with an
+     * {@link IllegalStateException} when no API key is configured.
+     */
+    public Path createSpeech(String prompt, UpstreamGovernor.Priority priority) throws IOException, InterruptedException {
+        if (openAiApiKey == null || openAiApiKey.isBlank()) {
+            throw new IllegalStateException("OPENAI_KEY is not set.");
         }
+        return upstreamGovernor.call(ttsModel, priority, upstreamGovernor.promptTokens(prompt),
+                () -> mediaTransport.download(speechRequest(prompt), speechOutputPath(prompt)));
     }
 
-    public String generateSpeech(String prompt) {
+    /**
+     * Starts speech synthesis and returns the audio body as it arrives, to be relayed to the client
+     * while a copy is saved to {@code generated-audio/}. The {@link UpstreamGovernor} admits the request;
+     * relaying the body afterwards does not hold a slot.
+     */
+    public MediaTransport.Relay openSpeechStream(String prompt) throws IOException, InterruptedException {
         if (openAiApiKey == null || openAiApiKey.isBlank()) {
-            return "OPENAI_KEY is not set.";
+            throw new IllegalStateException("OPENAI_KEY is not set.");
         }
+        return upstreamGovernor.call(ttsModel, UpstreamGovernor.Priority.INTERACTIVE, upstreamGovernor.promptTokens(prompt),
+                () -> mediaTransport.open(speechRequest(prompt), speechOutputPath(prompt)));
+    }
 
-        String requestBody = "{" +
-                "\"model\":\"" + jsonEscape(ttsModel) + "\"," +
-                "\"input\":\"" + jsonEscape(prompt) + "\"," +
-                "\"voice\":\"" + jsonEscape(ttsVoice) + "\"," +
-                "\"response_format\":\"" + jsonEscape(ttsResponseFormat) + "\"" +
-                "}";
+    private HttpRequest speechRequest(String prompt) throws JsonProcessingException {
+        byte[] requestBody = objectMapper.writeValueAsBytes(Map.of(
+                "model", ttsModel,
+                "input", prompt == null ? "" : prompt,
+                "voice", ttsVoice,
+                "response_format", ttsResponseFormat
+        ));
+        return mediaTransport.request(URI.create("https://api.openai.com/v1/audio/speech"))
+                .header("Authorization", "Bearer " + openAiApiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody))
+                .build();
+    }
 
+    private Path speechOutputPath(String prompt) {
+        return outputPath("generated-audio", prompt, ".mp3");
+    }
+
+    /**
+     * A new file name for every artifact: the same prompt can be generated several times within a
+     * second, by queued media jobs in particular, and each must keep its own file.
+     */
+    private Path outputPath(String directory, String prompt, String extension) {
         String safeName = toSafeFilename(prompt);
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String fileName = safeName + "_" + timestamp + ".mp3";
-        Path outputDir = Paths.get("generated-audio");
-        Path outputPath = outputDir.resolve(fileName);
-
-        try {
-            Files.createDirectories(outputDir);
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder(URI.create("https://api.openai.com/v1/audio/speech"))
-                    .header("Authorization", "Bearer " + openAiApiKey)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-            HttpResponse<byte[]> httpResponse = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
-            if (httpResponse.statusCode() >= 400) {
-                return "Failed to generate audio: HTTP " + httpResponse.statusCode();
-            }
-            Files.write(outputPath, httpResponse.body());
-            return "Saved audio to: " + outputPath.toAbsolutePath();
-        } catch (IOException | InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return "Failed to save audio: " + e.getMessage();
-        }
+        String fileName = safeName + "_" + timestamp + "_" + UUID.randomUUID() + extension;
+        return Paths.get(directory).resolve(fileName);
     }
 
     private String toSafeFilename(String prompt) {
@@ -441,17 +437,5 @@ public class OpenAiChatService {
         return safe;
     }
 
-    private String jsonEscape(String value) {
-        if (value == null) {
-            return "";
-        }
-        return value
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
-    }
-
 
 }
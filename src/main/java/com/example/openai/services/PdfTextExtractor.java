@@ -0,0 +1,362 @@
+package com.example.openai.services;
+
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Extracts PDF text page-parallel and hands it out as a {@link Reader}, page by page in document order.
+ * <p>
+ * Documents are opened with a temp-file-backed {@link MemoryUsageSetting}: at most
+ * {@code rag.pdf.max-main-memory-bytes} of stream data per file is buffered in heap and the rest spills to
+ * a scratch file of at most {@code rag.pdf.max-storage-bytes}. Files with enough pages are split into
+ * contiguous page ranges, and up to {@code rag.pdf.workers} ranges are extracted at once across all files;
+ * each range opens its own copy of the document (PDFBox documents are not thread-safe) and the budgets are
+ * divided between the copies. Each range buffers at most {@value #BUFFERED_PAGES_PER_RANGE} pages ahead of
+ * the reader.
+ * <p>
+ * A file that is not fully read within {@code rag.pdf.timeout-seconds} of its first range starting fails
+ * with an {@link IOException}. Timing out or closing the reader interrupts its ranges, which stop at the
+ * next content stream operator, and frees their worker slots at once, so a page stuck inside PDFBox
+ * cannot hold up the files behind it.
+ */
+@Component
+public class PdfTextExtractor implements AutoCloseable {
+
+    private static final Object END_OF_RANGE = new Object();
+    private static final int BUFFERED_PAGES_PER_RANGE = 16;
+    private static final long NOT_STARTED_POLL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ExecutorService workers = Executors.newCachedThreadPool(Thread.ofPlatform().name("pdf-extract-", 0).daemon(true).factory());
+    private final Semaphore workerSlots;
+    private final int maxRangesPerFile;
+    private final int minPagesPerRange;
+    private final long maxMainMemoryBytes;
+    private final long maxStorageBytes;
+    private final long timeoutSeconds;
+
+    public PdfTextExtractor(@Value("${rag.pdf.workers:0}") int workers,
+                            @Value("${rag.pdf.min-pages-per-worker:50}") int minPagesPerRange,
+                            @Value("${rag.pdf.max-main-memory-bytes:67108864}") long maxMainMemoryBytes,
+                            @Value("${rag.pdf.max-storage-bytes:1073741824}") long maxStorageBytes,
+                            @Value("${rag.pdf.timeout-seconds:300}") long timeoutSeconds) {
+        this.maxRangesPerFile = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.workerSlots = new Semaphore(maxRangesPerFile, true);
+        this.minPagesPerRange = Math.max(1, minPagesPerRange);
+        this.maxMainMemoryBytes = Math.max(1, maxMainMemoryBytes);
+        this.maxStorageBytes = Math.max(1, maxStorageBytes);
+        this.timeoutSeconds = Math.max(1, timeoutSeconds);
+    }
+
+    /**
+     * Starts extracting {@code file}. The returned reader must be closed, which also stops any
+     * workers still running for it.
+     */
+    public Reader open(Path file) throws IOException {
+        PDDocument first = load(file);
+        int pages = first.getNumberOfPages();
+        int rangeCount = Math.max(1, Math.min(maxRangesPerFile, pages / minPagesPerRange));
+
+        PageReader reader = new PageReader(file, rangeCount);
+        int pagesPerRange = Math.max(1, (pages + rangeCount - 1) / rangeCount);
+        for (int range = 0; range < rangeCount; range++) {
+            int startPage = range * pagesPerRange + 1;
+            int endPage = Math.min(pages, startPage + pagesPerRange - 1);
+            reader.ranges[range] = new PageRange(reader, range, startPage, endPage, range == 0 ? first : null);
+        }
+        try {
+            reader.ranges[0].task = workers.submit(reader.ranges[0]);
+        } catch (RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private PDDocument load(Path file) throws IOException {
+        // Each range opens its own copy, so a file's budget is shared between up to maxRangesPerFile copies.
+        MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(
+                Math.max(1, maxMainMemoryBytes / maxRangesPerFile),
+                Math.max(1, maxStorageBytes / maxRangesPerFile));
+        return PDDocument.load(file.toFile(), memory);
+    }
+
+    private static void closeQuietly(PDDocument document) {
+        if (document != null) {
+            try {
+                document.close();
+            } catch (IOException ignored) {
+                // Text already handed out; only the scratch file is left to clean up.
+            }
+        }
+    }
+
+    /**
+     * One contiguous page range of a file, extracted while it holds a worker slot. A range submits the
+     * next one only once it holds its own slot, so a file's slots are taken in page order and the range
+     * its reader is waiting for is never stuck behind ranges that are waiting for the reader.
+     */
+    private final class PageRange implements Runnable {
+
+        private final PageReader reader;
+        private final int index;
+        private final int startPage;
+        private final int endPage;
+        private final BlockingQueue<Object> output = new ArrayBlockingQueue<>(BUFFERED_PAGES_PER_RANGE);
+        // Whoever takes the document first closes it: the range once it runs, or the reader if it never does.
+        private final AtomicReference<PDDocument> preloaded;
+        private final AtomicBoolean holdsSlot = new AtomicBoolean();
+        private volatile Future<?> task;
+
+        private PageRange(PageReader reader, int index, int startPage, int endPage, PDDocument preloaded) {
+            this.reader = reader;
+            this.index = index;
+            this.startPage = startPage;
+            this.endPage = endPage;
+            this.preloaded = new AtomicReference<>(preloaded);
+        }
+
+        @Override
+        public void run() {
+            try {
+                workerSlots.acquire();
+            } catch (InterruptedException e) {
+                closeQuietly(preloaded.getAndSet(null));
+                return;
+            }
+            holdsSlot.set(true);
+            PDDocument document = preloaded.getAndSet(null);
+            try {
+                if (reader.closed) {
+                    return;
+                }
+                reader.started();
+                submitNext();
+                if (document == null && startPage <= endPage) {
+                    document = load(reader.file);
+                }
+                if (startPage <= endPage) {
+                    PageStripper stripper = new PageStripper(this);
+                    stripper.setStartPage(startPage);
+                    stripper.setEndPage(endPage);
+                    stripper.writeText(document, stripper.page);
+                }
+                publish(END_OF_RANGE);
+            } catch (IOException | RuntimeException e) {
+                if (!reader.closed) {
+                    try {
+                        publish(e);
+                    } catch (InterruptedIOException ignored) {
+                        // Closed while the reader was not keeping up; nobody is waiting for the error.
+                    }
+                }
+            } finally {
+                closeQuietly(document);
+                releaseSlot();
+            }
+        }
+
+        private void submitNext() {
+            if (index + 1 < reader.ranges.length) {
+                PageRange next = reader.ranges[index + 1];
+                try {
+                    next.task = workers.submit(next);
+                } catch (RejectedExecutionException e) {
+                    next.output.offer(e);
+                }
+            }
+        }
+
+        private void publish(Object item) throws InterruptedIOException {
+            try {
+                output.put(item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("PDF extraction was cancelled.");
+            }
+        }
+
+        private void checkNotCancelled() throws InterruptedIOException {
+            if (reader.closed || Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("PDF extraction was cancelled.");
+            }
+        }
+
+        /**
+         * Interrupts the range and hands its worker slot back even if its thread is stuck and never returns.
+         */
+        private void cancel() {
+            Future<?> running = task;
+            if (running != null) {
+                running.cancel(true);
+            }
+            closeQuietly(preloaded.getAndSet(null));
+            releaseSlot();
+        }
+
+        private void releaseSlot() {
+            if (holdsSlot.compareAndSet(true, false)) {
+                workerSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Publishes each page's text as soon as the page is done.
+     */
+    private static final class PageStripper extends PDFTextStripper {
+
+        private final StringWriter page = new StringWriter();
+        private final PageRange range;
+
+        private PageStripper(PageRange range) throws IOException {
+            this.range = range;
+        }
+
+        @Override
+        protected void startPage(PDPage pdPage) throws IOException {
+            range.checkNotCancelled();
+            super.startPage(pdPage);
+        }
+
+        @Override
+        protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+            // PDFBox does not check for interruption itself; this keeps a slow page cancellable.
+            range.checkNotCancelled();
+            super.processOperator(operator, operands);
+        }
+
+        @Override
+        protected void endPage(PDPage pdPage) throws IOException {
+            super.endPage(pdPage);
+            StringBuffer text = page.getBuffer();
+            // A blank line between pages lets the chunker treat the page break as a paragraph break.
+            range.publish(text.append("\n\n").toString());
+            text.setLength(0);
+        }
+    }
+
+    private final class PageReader extends Reader {
+
+        private final Path file;
+        private final PageRange[] ranges;
+        private volatile boolean closed;
+        private volatile boolean started;
+        private volatile long deadline;
+        private int rangeIndex;
+        private String page = "";
+        private int position;
+
+        private PageReader(Path file, int rangeCount) {
+            this.file = file;
+            this.ranges = new PageRange[rangeCount];
+        }
+
+        /**
+         * Starts the clock when the first range of the file gets a worker, not while it waits behind other files.
+         */
+        private synchronized void started() {
+            if (!started) {
+                deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+                started = true;
+            }
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == page.length()) {
+                if (!nextPage()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, page.length() - position);
+            page.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        private boolean nextPage() throws IOException {
+            if (closed) {
+                throw new IOException("Reader is closed.");
+            }
+            while (rangeIndex < ranges.length) {
+                Object item = poll(ranges[rangeIndex].output);
+                if (item == END_OF_RANGE) {
+                    rangeIndex++;
+                } else if (item instanceof Exception e) {
+                    close();
+                    throw new IOException("Failed to extract text from " + file.getFileName() + ": " + e.getMessage(), e);
+                } else {
+                    page = (String) item;
+                    position = 0;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Object poll(BlockingQueue<Object> range) throws IOException {
+            while (true) {
+                Object item;
+                try {
+                    long remaining = started ? deadline - System.nanoTime() : NOT_STARTED_POLL_NANOS;
+                    item = remaining > 0 ? range.poll(remaining, TimeUnit.NANOSECONDS) : range.poll();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new InterruptedIOException("Interrupted while extracting text from " + file.getFileName() + ".");
+                }
+                if (item != null) {
+                    return item;
+                }
+                if (started && deadline - System.nanoTime() <= 0) {
+                    close();
+                    throw new IOException("Text extraction from " + file.getFileName() + " exceeded " + timeoutSeconds + " s.");
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (PageRange range : ranges) {
+                if (range != null) {
+                    range.cancel();
+                }
+            }
+        }
+    }
+}
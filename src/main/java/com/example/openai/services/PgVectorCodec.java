@@ -0,0 +1,154 @@
+package com.example.openai.services;
+
+import org.postgresql.PGConnection;
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Encodes embeddings in pgvector's binary wire format ({@code int16 dim, int16 unused, float4[dim]},
+ * big-endian) so they can be bound as binary query parameters or streamed with binary COPY,
+ * instead of being formatted into decimal {@code '[0.1,0.2,...]'} literals.
+ */
+public final class PgVectorCodec {
+
+    private static final Map<PGConnection, Boolean> REGISTERED_CONNECTIONS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private PgVectorCodec() {
+    }
+
+    public static int encodedLength(float[] vector) {
+        return 4 + 4 * vector.length;
+    }
+
+    public static void encode(float[] vector, ByteBuffer target) {
+        target.putShort((short) vector.length);
+        target.putShort((short) 0);
+        for (float value : vector) {
+            target.putFloat(value);
+        }
+    }
+
+    public static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedLength(vector));
+        encode(vector, buffer);
+        return buffer.array();
+    }
+
+    public static float[] decode(byte[] bytes, int offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, bytes.length - offset);
+        int dimensions = Short.toUnsignedInt(buffer.getShort());
+        buffer.getShort();
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = buffer.getFloat();
+        }
+        return vector;
+    }
+
+    public static String toLiteral(float[] vector) {
+        StringBuilder builder = new StringBuilder(vector.length * 12 + 2).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(vector[i]);
+        }
+        return builder.append(']').toString();
+    }
+
+    public static float[] parseLiteral(String literal) {
+        String body = literal.trim();
+        body = body.substring(1, body.length() - 1);
+        if (body.isBlank()) {
+            return new float[0];
+        }
+        String[] parts = body.split(",");
+        float[] vector = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            vector[i] = Float.parseFloat(parts[i].trim());
+        }
+        return vector;
+    }
+
+    /**
+     * Reads a {@code vector} column, whether the driver returned it as {@link PgVector} or as text.
+     */
+    public static float[] readVector(ResultSet resultSet, String column) throws SQLException {
+        Object value = resultSet.getObject(column);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof PgVector pgVector) {
+            return pgVector.toArray();
+        }
+        return parseLiteral(value.toString());
+    }
+
+    /**
+     * Wraps an embedding as a {@code vector} parameter. Connections passed through
+     * {@link #registerBinaryTransfer(Connection)} send it in binary, others fall back to the text literal.
+     */
+    public static PgVector toParameter(float[] vector) {
+        PgVector parameter = new PgVector();
+        parameter.vector = vector;
+        return parameter;
+    }
+
+    /**
+     * Registers {@link PgVector} for the {@code vector} type on the physical PgJDBC connection,
+     * which enables binary send and receive for it. Done once per pooled connection.
+     */
+    public static void registerBinaryTransfer(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        if (REGISTERED_CONNECTIONS.putIfAbsent(pgConnection, Boolean.TRUE) == null) {
+            pgConnection.addDataType("vector", PgVector.class);
+        }
+    }
+
+    public static class PgVector extends PGobject implements PGBinaryObject {
+
+        private float[] vector;
+
+        public PgVector() {
+            setType("vector");
+        }
+
+        public float[] toArray() {
+            return vector;
+        }
+
+        @Override
+        public void setValue(String value) throws SQLException {
+            super.setValue(value);
+            vector = value == null ? null : parseLiteral(value);
+        }
+
+        @Override
+        public String getValue() {
+            return vector == null ? null : toLiteral(vector);
+        }
+
+        @Override
+        public void setByteValue(byte[] value, int offset) {
+            vector = decode(value, offset);
+        }
+
+        @Override
+        public int lengthInBytes() {
+            return vector == null ? 0 : encodedLength(vector);
+        }
+
+        @Override
+        public void toBytes(byte[] bytes, int offset) {
+            encode(vector, ByteBuffer.wrap(bytes, offset, bytes.length - offset));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.openai.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Runs the top-k search in Postgres with pgvector. With {@code rag.vector.quantization} set to
+ * {@code halfvec} or {@code binary}, candidates come from the quantized expression index and are
+ * reranked by exact cosine distance. When {@link VectorIndexManager} reports an index, the query runs
+ * in a transaction that first sets {@code ivfflat.probes} or {@code hnsw.ef_search} for the requested
+ * {@link SearchProfile} with {@code SET LOCAL} semantics, so pooled connections are left untouched.
+ * The collection is a constant of each query, so the planner prunes it to that collection's partition
+ * and its index.
+ */
+@Component
+public class PgVectorStore implements VectorStore {
+
+    private static final String SELECT_TOP_CHUNKS_SQL = """
+            SELECT c.source_path, c.source, c.chunk_index, c.content
+            FROM rag_chunks c, rag_collections s
+            WHERE c.collection = ? AND %s
+            ORDER BY c.embedding <=> ?
+            LIMIT ?
+            """.formatted(CorpusGenerationStore.VISIBLE_CHUNKS_PREDICATE);
+    private static final String SELECT_RERANKED_CHUNKS_SQL = """
+            SELECT source_path, source, chunk_index, content
+            FROM (
+                SELECT c.source_path, c.source, c.chunk_index, c.content, c.embedding
+                FROM rag_chunks c, rag_collections s
+                WHERE c.collection = ? AND %s
+                ORDER BY %s
+                LIMIT ?
+            ) candidates
+            ORDER BY embedding <=> ?
+            LIMIT ?
+            """;
+
+    private static final String SET_LOCAL_SQL = "SELECT set_config(?, ?, true)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VectorIndexManager indexManager;
+    private final VectorQuantization quantization;
+    private final int rerankFactor;
+    private final String searchSql;
+
+    public PgVectorStore(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         VectorIndexManager indexManager,
+                         @Value("${rag.vector.quantization:none}") String quantization,
+                         @Value("${rag.vector.rerank-factor:4}") int rerankFactor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.indexManager = indexManager;
+        this.quantization = VectorQuantization.fromProperty(quantization);
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.searchSql = this.quantization == VectorQuantization.NONE
+                ? SELECT_TOP_CHUNKS_SQL
+                : SELECT_RERANKED_CHUNKS_SQL.formatted(CorpusGenerationStore.VISIBLE_CHUNKS_PREDICATE, this.quantization.orderBy("c.embedding"));
+    }
+
+    @Override
+    public List<DocumentChunk> search(String collection, float[] queryEmbedding, int topK, SearchProfile profile) {
+        VectorIndexSpec index = indexManager.currentSpec(collection);
+        if (index == null) {
+            return query(collection, queryEmbedding, topK);
+        }
+        return transactionTemplate.execute(status -> {
+            int candidates = quantization == VectorQuantization.NONE ? topK : topK * rerankFactor;
+            if (index.isIvfflat()) {
+                jdbcTemplate.queryForObject(SET_LOCAL_SQL, String.class, "ivfflat.probes", String.valueOf(profile.probes(index.lists())));
+            } else {
+                jdbcTemplate.queryForObject(SET_LOCAL_SQL, String.class, "hnsw.ef_search", String.valueOf(profile.efSearch(candidates)));
+            }
+            return query(collection, queryEmbedding, topK);
+        });
+    }
+
+    private List<DocumentChunk> query(String collection, float[] queryEmbedding, int topK) {
+        return jdbcTemplate.query(
+            connection -> {
+                PgVectorCodec.registerBinaryTransfer(connection);
+                PreparedStatement statement = connection.prepareStatement(searchSql);
+                PgVectorCodec.PgVector parameter = PgVectorCodec.toParameter(queryEmbedding);
+                statement.setString(1, collection);
+                statement.setObject(2, parameter);
+                if (quantization == VectorQuantization.NONE) {
+                    statement.setInt(3, topK);
+                } else {
+                    statement.setInt(3, topK * rerankFactor);
+                    statement.setObject(4, parameter);
+                    statement.setInt(5, topK);
+                }
+                return statement;
+            },
+            (rs, rowNum) -> new DocumentChunk(
+                rs.getString("source_path"),
+                rs.getString("source"),
+                rs.getInt("chunk_index"),
+                rs.getString("content"),
+                null
+            )
+        );
+    }
+}
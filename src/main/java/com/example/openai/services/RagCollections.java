@@ -0,0 +1,150 @@
+package com.example.openai.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Named collections of RAG documents. {@code rag_chunks} is list-partitioned by {@code collection},
+ * one partition {@code rag_chunks_<name>} per collection, so a query and its vector index only touch
+ * the collection it asks about, and a load only writes, retires and purges rows of its own
+ * partition. Each collection has its own active generation in {@code rag_collections}.
+ * <p>
+ * A {@code rag_chunks} table from before collections existed is converted at startup, after
+ * {@code schema.sql} has run and before the web server accepts requests: it becomes the partition of
+ * the {@value #DEFAULT} collection, keeping its rows and indexes.
+ * <p>
+ * Collections are never dropped, so names once seen are remembered and {@link #exists} only asks
+ * the database about names this node has not seen yet, e.g. ones created by another node.
+ */
+@Component
+public class RagCollections implements SmartInitializingSingleton {
+
+    public static final String DEFAULT = "default";
+
+    private static final Logger log = LoggerFactory.getLogger(RagCollections.class);
+
+    // Short enough that idx_rag_chunks_<name>_embedding_next stays within Postgres' 63-byte identifiers.
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-z][a-z0-9_]{0,31}");
+
+    private static final String SELECT_TABLE_KIND_SQL = "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)";
+    private static final String SELECT_PRIMARY_KEY_HAS_COLLECTION_SQL = """
+            SELECT EXISTS (
+                SELECT 1
+                FROM pg_index i
+                JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = ANY(i.indkey)
+                WHERE i.indrelid = to_regclass(?) AND i.indisprimary AND a.attname = 'collection'
+            )
+            """;
+    private static final String SELECT_COLLECTIONS_SQL = "SELECT name FROM rag_collections ORDER BY name";
+    private static final String SELECT_COLLECTION_EXISTS_SQL = "SELECT EXISTS (SELECT 1 FROM rag_collections WHERE name = ?)";
+    private static final String INSERT_COLLECTION_SQL = "INSERT INTO rag_collections (name) VALUES (?) ON CONFLICT (name) DO NOTHING";
+    private static final List<String> CHUNK_INDEX_SUFFIXES = List.of("source_path", "generation", "retired_generation", "embedding");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+
+    public RagCollections(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Validated collection name; blank means {@value #DEFAULT}.
+     */
+    public static String normalize(String name) {
+        if (name == null || name.isBlank()) {
+            return DEFAULT;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        if (!NAME_PATTERN.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("Invalid collection name: " + name
+                    + " (expected a letter followed by up to 31 letters, digits or underscores).");
+        }
+        return normalized;
+    }
+
+    /**
+     * Partition of {@code rag_chunks} holding {@code collection}; {@code collection} must be normalized.
+     */
+    static String partition(String collection) {
+        return "rag_chunks_" + collection;
+    }
+
+    public List<String> names() {
+        List<String> names = jdbcTemplate.queryForList(SELECT_COLLECTIONS_SQL, String.class);
+        known.addAll(names);
+        return names;
+    }
+
+    public boolean exists(String collection) {
+        if (known.contains(collection)) {
+            return true;
+        }
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(SELECT_COLLECTION_EXISTS_SQL, Boolean.class, collection))) {
+            known.add(collection);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates {@code collection} and its partition if they do not exist yet.
+     */
+    void ensure(String collection) {
+        jdbcTemplate.update(INSERT_COLLECTION_SQL, collection);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition(collection)
+                + " PARTITION OF rag_chunks FOR VALUES IN ('" + collection + "')");
+        known.add(collection);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate();
+    }
+
+    void migrate() {
+        List<String> kind = jdbcTemplate.queryForList(SELECT_TABLE_KIND_SQL, String.class, "rag_chunks");
+        if (!kind.isEmpty() && "r".equals(kind.get(0))) {
+            transactionTemplate.executeWithoutResult(status -> partitionLegacyChunks());
+            log.info("Converted rag_chunks to a table partitioned by collection; existing rows are in collection '{}'.", DEFAULT);
+        }
+        for (String table : List.of("rag_sources", "rag_source_stats")) {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(SELECT_PRIMARY_KEY_HAS_COLLECTION_SQL, Boolean.class, table))) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT " + table + "_pkey, ADD PRIMARY KEY (collection, source_path)");
+            }
+        }
+        ensure(DEFAULT);
+        names();
+    }
+
+    private void partitionLegacyChunks() {
+        String partition = partition(DEFAULT);
+        jdbcTemplate.execute("ALTER TABLE rag_chunks RENAME TO " + partition);
+        // The legacy key is on id alone; a partition's key must match the parent's (collection, id).
+        jdbcTemplate.execute("ALTER TABLE " + partition + " DROP CONSTRAINT IF EXISTS rag_chunks_pkey");
+        jdbcTemplate.execute("ALTER TABLE " + partition + " ADD CONSTRAINT " + partition + "_pkey PRIMARY KEY (collection, id)");
+        for (String suffix : CHUNK_INDEX_SUFFIXES) {
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_rag_chunks_" + suffix + " RENAME TO idx_" + partition + "_" + suffix);
+        }
+
+        jdbcTemplate.execute("CREATE TABLE rag_chunks (LIKE " + partition + " INCLUDING DEFAULTS) PARTITION BY LIST (collection)");
+        jdbcTemplate.execute("ALTER TABLE rag_chunks ADD PRIMARY KEY (collection, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_rag_chunks_source_path ON rag_chunks (source_path)");
+        jdbcTemplate.execute("CREATE INDEX idx_rag_chunks_generation ON rag_chunks (generation)");
+        jdbcTemplate.execute("""
+                CREATE INDEX idx_rag_chunks_retired_generation ON rag_chunks (retired_generation)
+                WHERE retired_generation IS NOT NULL""");
+        jdbcTemplate.execute("ALTER TABLE rag_chunks ATTACH PARTITION " + partition + " FOR VALUES IN ('" + DEFAULT + "')");
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.openai.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Streams documents through walk -> extract -> chunk -> embed -> write.
+ * Stages are connected by bounded queues, so memory use depends on the queue sizes and not on
+ * the size of the corpus. Files are extracted concurrently on virtual threads, chunks are sent to
+ * the embedding model in size-bounded batches with a limited number of requests in flight, and
+ * every write is handed to the {@link IngestionSink} on the calling thread. The sink commits each
+ * batch on its own, so a failed load leaves the rows written so far behind; callers write into a
+ * shadow generation that readers only see once it is activated.
+ */
+@Component
+public class RagIngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(RagIngestionPipeline.class);
+
+    private static final FileTask NO_MORE_FILES = new FileTask(null, null, false);
+    private static final WriteTask END_OF_LOAD = sink -> {
+    };
+
+    private final EmbeddingCache embeddingCache;
+    private final DocumentTextExtractor textExtractor;
+    private final TextChunker textChunker;
+    private final int extractConcurrency;
+    private final int batchSize;
+    private final int batchMaxChars;
+    private final int maxInFlight;
+    private final int queueCapacity;
+
+    public RagIngestionPipeline(EmbeddingCache embeddingCache,
+                                DocumentTextExtractor textExtractor,
+                                TextChunker textChunker,
+                                @Value("${rag.ingest.extract-concurrency:0}") int extractConcurrency,
+                                @Value("${rag.embedding.batch-size:64}") int batchSize,
+                                @Value("${rag.embedding.batch-max-chars:60000}") int batchMaxChars,
+                                @Value("${rag.embedding.max-in-flight:4}") int maxInFlight,
+                                @Value("${rag.ingest.queue-capacity:16}") int queueCapacity) {
+        this.embeddingCache = embeddingCache;
+        this.textExtractor = textExtractor;
+        this.textChunker = textChunker;
+        this.extractConcurrency = extractConcurrency > 0 ? extractConcurrency : Runtime.getRuntime().availableProcessors();
+        this.batchSize = Math.max(1, batchSize);
+        this.batchMaxChars = Math.max(1, batchMaxChars);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Walks {@code inputPath} (a folder or a single supported file) and streams every change
+     * relative to {@code knownSources} into {@code sink}. Sink callbacks run on the calling thread,
+     * in an order where a source's {@code sourceChanged} always precedes its chunks.
+     */
+    public void run(Path inputPath, Map<String, TrackedSource> knownSources, IngestionSink sink) {
+        IngestionRun run = new IngestionRun(knownSources);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            run.executor = executor;
+            executor.submit(() -> run.produce(inputPath));
+            try {
+                run.drain(sink);
+            } catch (Throwable e) {
+                // Errors from the sink too: closing the executor waits for workers that are blocked on a full queue.
+                run.aborted.set(true);
+                executor.shutdownNow();
+                throw e;
+            }
+        }
+    }
+
+    public interface IngestionSink {
+
+        void sourceUnchanged(TrackedSource source, boolean fingerprintChanged);
+
+        void sourceChanged(TrackedSource source, boolean replacesExisting);
+
+        /**
+         * Follows {@code sourceChanged} once the source is fully chunked; {@code source} carries the chunk count.
+         */
+        void sourceChunked(TrackedSource source);
+
+        void chunksEmbedded(List<DocumentChunk> chunks);
+
+        void sourcesRemoved(List<String> sourcePaths);
+    }
+
+    private interface WriteTask {
+        void applyTo(IngestionSink sink);
+    }
+
+    private record FileTask(Path file, TrackedSource source, boolean replacesExisting) {
+    }
+
+    private final class IngestionRun {
+
+        private final Map<String, TrackedSource> knownSources;
+        private final BlockingQueue<WriteTask> writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<FileTask> fileQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Semaphore embedPermits = new Semaphore(maxInFlight);
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private ExecutorService executor;
+        private EmbeddingBatch batch = new EmbeddingBatch();
+
+        private IngestionRun(Map<String, TrackedSource> knownSources) {
+            this.knownSources = knownSources;
+        }
+
+        private void drain(IngestionSink sink) {
+            try {
+                while (true) {
+                    WriteTask task = writeQueue.take();
+                    if (task == END_OF_LOAD) {
+                        return;
+                    }
+                    task.applyTo(sink);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Document ingestion was interrupted.", e);
+            }
+        }
+
+        private void produce(Path inputPath) {
+            try {
+                List<Future<?>> workers = new ArrayList<>(extractConcurrency);
+                for (int i = 0; i < extractConcurrency; i++) {
+                    workers.add(executor.submit(this::extractFiles));
+                }
+
+                Set<String> seenSources = walk(inputPath);
+                for (int i = 0; i < extractConcurrency; i++) {
+                    fileQueue.put(NO_MORE_FILES);
+                }
+                for (Future<?> worker : workers) {
+                    await(worker);
+                }
+
+                EmbeddingBatch lastBatch;
+                synchronized (this) {
+                    lastBatch = batch;
+                    batch = new EmbeddingBatch();
+                }
+                if (!lastBatch.isEmpty()) {
+                    submitBatch(lastBatch);
+                }
+                // Holding every permit means all embedding requests have finished and queued their rows.
+                embedPermits.acquire(maxInFlight);
+
+                List<String> removedSources = knownSources.keySet().stream()
+                        .filter(sourcePath -> !seenSources.contains(sourcePath))
+                        .toList();
+                if (!removedSources.isEmpty()) {
+                    writeQueue.put(sink -> sink.sourcesRemoved(removedSources));
+                }
+                writeQueue.put(END_OF_LOAD);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(new IllegalStateException("Document ingestion was interrupted.", e));
+            } catch (Throwable e) {
+                // Anything else, an Error included, must still reach drain(), or it waits for END_OF_LOAD forever.
+                fail(e);
+            }
+        }
+
+        private Set<String> walk(Path inputPath) throws InterruptedException {
+            Set<String> seenSources = new HashSet<>();
+            try (Stream<Path> paths = Files.isDirectory(inputPath) ? Files.walk(inputPath) : Stream.of(inputPath)) {
+                Iterator<Path> iterator = paths.filter(Files::isRegularFile)
+                        .filter(textExtractor::isSupported)
+                        .iterator();
+                while (iterator.hasNext()) {
+                    Path file = iterator.next();
+                    String sourcePath = TrackedSource.pathKey(file);
+                    seenSources.add(sourcePath);
+
+                    TrackedSource previous = knownSources.get(sourcePath);
+                    long sizeBytes = Files.size(file);
+                    long lastModifiedMs = Files.getLastModifiedTime(file).toMillis();
+                    if (previous != null && previous.sizeBytes() == sizeBytes && previous.lastModifiedMs() == lastModifiedMs) {
+                        writeQueue.put(sink -> sink.sourceUnchanged(previous, false));
+                        continue;
+                    }
+
+                    TrackedSource current = new TrackedSource(sourcePath, sizeBytes, lastModifiedMs, TrackedSource.contentHash(file), 0);
+                    if (previous != null && previous.contentHash().equals(current.contentHash())) {
+                        // Touched but identical content: keep the chunks, refresh the fingerprint.
+                        TrackedSource touched = current.withChunkCount(previous.chunkCount());
+                        writeQueue.put(sink -> sink.sourceUnchanged(touched, true));
+                        continue;
+                    }
+                    fileQueue.put(new FileTask(file, current, previous != null));
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to read documents: " + e.getMessage(), e);
+            }
+            return seenSources;
+        }
+
+        private Void extractFiles() throws InterruptedException {
+            while (true) {
+                FileTask task = fileQueue.take();
+                if (task == NO_MORE_FILES) {
+                    return null;
+                }
+
+                try {
+                    extractFile(task);
+                } catch (Throwable e) {
+                    fail(e);
+                    return null;
+                }
+            }
+        }
+
+        private void extractFile(FileTask task) throws InterruptedException {
+            TrackedSource source = task.source();
+            // Queued before any of its chunks, so the sink clears old rows before new ones arrive.
+            writeQueue.put(sink -> sink.sourceChanged(source, task.replacesExisting()));
+
+            String sourceName = task.file().getFileName().toString();
+            int chunkCount = 0;
+            boolean complete = true;
+            try (Reader text = textExtractor.openText(task.file())) {
+                Iterator<String> chunks = textChunker.chunks(text);
+                while (chunks.hasNext()) {
+                    addChunk(new DocumentChunk(source.sourcePath(), sourceName, chunkCount++, chunks.next(), null));
+                }
+            } catch (InterruptedIOException e) {
+                throw new InterruptedException(e.getMessage());
+            } catch (IOException | UncheckedIOException e) {
+                // One unreadable file must not fail the load: keep what was read and retry it next time.
+                complete = false;
+                log.warn("Skipping the rest of {} after {} chunks: {}", task.file(), chunkCount, e.getMessage());
+            }
+            TrackedSource chunked = complete ? source.withChunkCount(chunkCount) : source.incomplete(chunkCount);
+            writeQueue.put(sink -> sink.sourceChunked(chunked));
+        }
+
+        private void addChunk(DocumentChunk chunk) throws InterruptedException {
+            EmbeddingBatch fullBatch = null;
+            synchronized (this) {
+                if (!batch.isEmpty() && !batch.fits(chunk.text())) {
+                    fullBatch = batch;
+                    batch = new EmbeddingBatch();
+                }
+                batch.add(chunk);
+            }
+            if (fullBatch != null) {
+                submitBatch(fullBatch);
+            }
+        }
+
+        private void submitBatch(EmbeddingBatch embeddingBatch) throws InterruptedException {
+            embedPermits.acquire();
+            executor.submit(() -> {
+                try {
+                    List<DocumentChunk> embedded = embed(embeddingBatch);
+                    writeQueue.put(sink -> sink.chunksEmbedded(embedded));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable e) {
+                    // A batch that fails without queueing its rows must fail the load, not leave a silent gap.
+                    fail(e);
+                } finally {
+                    embedPermits.release();
+                }
+            });
+        }
+
+        private List<DocumentChunk> embed(EmbeddingBatch embeddingBatch) {
+            List<String> texts = embeddingBatch.chunks.stream().map(DocumentChunk::text).toList();
+            List<float[]> vectors = embeddingCache.embedAll(texts, UpstreamGovernor.Priority.BULK);
+            List<DocumentChunk> embedded = new ArrayList<>(texts.size());
+            for (int i = 0; i < texts.size(); i++) {
+                DocumentChunk chunk = embeddingBatch.chunks.get(i);
+                embedded.add(new DocumentChunk(chunk.sourcePath(), chunk.source(), chunk.chunkIndex(), chunk.text(), vectors.get(i)));
+            }
+            return embedded;
+        }
+
+        private void fail(Throwable cause) {
+            if (aborted.getAndSet(true)) {
+                return;
+            }
+            RuntimeException failure = cause instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException("Document ingestion failed: " + cause, cause);
+            try {
+                writeQueue.put(sink -> {
+                    throw failure;
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void await(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof InterruptedException interruptedException) {
+                throw interruptedException;
+            }
+            throw new IllegalStateException("Document ingestion failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private final class EmbeddingBatch {
+        private final List<DocumentChunk> chunks = new ArrayList<>();
+        private int chars;
+
+        boolean isEmpty() {
+            return chunks.isEmpty();
+        }
+
+        boolean fits(String text) {
+            return chunks.size() < batchSize && chars + text.length() <= batchMaxChars;
+        }
+
+        void add(DocumentChunk chunk) {
+            chunks.add(chunk);
+            chars += chunk.text().length();
+        }
+    }
+}
@@ -1,52 +1,119 @@
 package com.example.openai.services;
 
 import com.example.openai.models.RagAnswerResponse;
+import com.example.openai.models.RagBatchAnswer;
+import com.example.openai.models.RagBatchAskResponse;
+import com.example.openai.models.RagCorpusStats;
 import com.example.openai.models.RagLoadResponse;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.jsoup.Jsoup;
+import com.example.openai.models.RagRetrievalEvent;
+import com.example.openai.models.RagRetrievedChunk;
+import com.example.openai.models.RagStreamSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class RagService {
 
-    private static final int CHUNK_SIZE = 1200;
-    private static final int CHUNK_OVERLAP = 200;
-    private static final String DELETE_ALL_CHUNKS_SQL = "DELETE FROM rag_chunks";
-    private static final String INSERT_CHUNK_SQL = "INSERT INTO rag_chunks (source, chunk_index, content, embedding) VALUES (?, ?, ?, ?::vector)";
-    private static final String SELECT_TOP_CHUNKS_SQL = """
-            SELECT source, chunk_index, content
-            FROM rag_chunks
-            ORDER BY embedding <=> ?::vector
-            LIMIT ?
-            """;
-    private static final String COUNT_CHUNKS_SQL = "SELECT COUNT(*) FROM rag_chunks";
+    private static final Logger log = LoggerFactory.getLogger(RagService.class);
 
+    private static final String COPY_CHUNKS_SQL = "COPY rag_chunks (collection, source_path, source, chunk_index, content, embedding, generation) FROM STDIN (FORMAT BINARY)";
     private final ChatClient chatClient;
-    private final EmbeddingModel embeddingModel;
+    private final UpstreamGovernor upstreamGovernor;
+    private final String chatModel;
+    private final EmbeddingCache embeddingCache;
     private final JdbcTemplate jdbcTemplate;
-
-    public RagService(ChatClient.Builder chatClientBuilder, EmbeddingModel embeddingModel, JdbcTemplate jdbcTemplate) {
+    private final DocumentTextExtractor textExtractor;
+    private final RagIngestionPipeline ingestionPipeline;
+    private final SourceFingerprintStore fingerprintStore;
+    private final TransactionTemplate transactionTemplate;
+    private final CorpusGenerationStore generationStore;
+    private final SemanticAnswerCache answerCache;
+    private final VectorStore vectorStore;
+    private final CorpusStatistics corpusStatistics;
+    private final VectorIndexManager indexManager;
+    private final ContextPacker contextPacker;
+    private final IngestionJobStore jobStore;
+    private final RagCollections collections;
+    private final int writeBatchSize;
+    private final int maxBatchQuestions;
+    private final Semaphore retrievalPermits;
+    private final Semaphore answerPermits;
+    private final Map<String, ReentrantLock> loadLocks = new ConcurrentHashMap<>();
+
+    public RagService(ChatClient.Builder chatClientBuilder,
+                      EmbeddingCache embeddingCache,
+                      JdbcTemplate jdbcTemplate,
+                      DocumentTextExtractor textExtractor,
+                      RagIngestionPipeline ingestionPipeline,
+                      SourceFingerprintStore fingerprintStore,
+                      TransactionTemplate transactionTemplate,
+                      CorpusGenerationStore generationStore,
+                      SemanticAnswerCache answerCache,
+                      VectorStore vectorStore,
+                      CorpusStatistics corpusStatistics,
+                      VectorIndexManager indexManager,
+                      ContextPacker contextPacker,
+                      IngestionJobStore jobStore,
+                      RagCollections collections,
+                      UpstreamGovernor upstreamGovernor,
+                      @Value("${spring.ai.openai.chat.options.model:gpt-4o-mini}") String chatModel,
+                      @Value("${rag.ingest.write-batch-size:200}") int writeBatchSize,
+                      @Value("${rag.batch.max-questions:500}") int maxBatchQuestions,
+                      @Value("${rag.batch.retrieval-concurrency:4}") int retrievalConcurrency,
+                      @Value("${rag.batch.answer-concurrency:8}") int answerConcurrency) {
         this.chatClient = chatClientBuilder.build();
-        this.embeddingModel = embeddingModel;
+        this.embeddingCache = embeddingCache;
         this.jdbcTemplate = jdbcTemplate;
+        this.textExtractor = textExtractor;
+        this.ingestionPipeline = ingestionPipeline;
+        this.fingerprintStore = fingerprintStore;
+        this.transactionTemplate = transactionTemplate;
+        this.generationStore = generationStore;
+        this.answerCache = answerCache;
+        this.vectorStore = vectorStore;
+        this.corpusStatistics = corpusStatistics;
+        this.indexManager = indexManager;
+        this.contextPacker = contextPacker;
+        this.jobStore = jobStore;
+        this.collections = collections;
+        this.upstreamGovernor = upstreamGovernor;
+        this.chatModel = chatModel;
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+        this.maxBatchQuestions = Math.max(1, maxBatchQuestions);
+        this.retrievalPermits = new Semaphore(Math.max(1, retrievalConcurrency), true);
+        this.answerPermits = new Semaphore(Math.max(1, answerConcurrency), true);
     }
 
-    public synchronized RagLoadResponse loadDocuments(String folderPath) {
+    /**
+     * Validates a {@code /rag/load} path and returns it as a folder or supported file.
+     */
+    public Path resolveLoadPath(String folderPath) {
         if (folderPath == null || folderPath.isBlank()) {
             throw new IllegalArgumentException("Folder path is required.");
         }
@@ -64,62 +131,264 @@ public class RagService {
             throw new IllegalArgumentException("Invalid folder path: " + normalizedFolderPath);
         }
 
-        List<String> loadedSources = new ArrayList<>();
-        List<DocumentChunk> newChunks = new ArrayList<>();
+        if (!Files.isDirectory(inputPath) && !(Files.isRegularFile(inputPath) && textExtractor.isSupported(inputPath))) {
+            throw new IllegalArgumentException("Unsupported file type: " + inputPath);
+        }
+
+        return inputPath;
+    }
+
+    /**
+     * Returns the normalized name of an existing collection.
+     */
+    public String requireCollection(String name) {
+        String collection = RagCollections.normalize(name);
+        if (!collections.exists(collection)) {
+            throw new IllegalArgumentException("Unknown collection: " + collection + ". Load documents into it first using /rag/load.");
+        }
+        return collection;
+    }
 
+    public List<String> collections() {
+        return collections.names();
+    }
+
+    /**
+     * Runs {@code job} on the calling thread, creating its collection if needed. Only one load per
+     * collection runs at a time on this node; loads of different collections run side by side.
+     */
+    RagLoadResponse load(IngestionJob job) {
+        Path inputPath = resolveLoadPath(job.path());
+        collections.ensure(job.collection());
+        ReentrantLock loadLock = loadLocks.computeIfAbsent(job.collection(), collection -> new ReentrantLock());
+        loadLock.lock();
         try {
-            if (Files.isDirectory(inputPath)) {
-                try (Stream<Path> paths = Files.walk(inputPath)) {
-                    paths.filter(Files::isRegularFile)
-                            .filter(this::isSupported)
-                            .forEach(file -> loadSingleFile(file, loadedSources, newChunks));
-                }
-            } else if (Files.isRegularFile(inputPath) && isSupported(inputPath)) {
-                loadSingleFile(inputPath, loadedSources, newChunks);
-            } else {
-                throw new IllegalArgumentException("Unsupported file type: " + inputPath);
+            return loadIntoNewGeneration(inputPath, job);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private RagLoadResponse loadIntoNewGeneration(Path inputPath, IngestionJob job) {
+        String collection = job.collection();
+        long activeGeneration = generationStore.activeGeneration(collection);
+        long generation;
+        // The in-memory job may be stale: another job may have started over the generation it staged.
+        IngestionJobStore.ResumeState staged = jobStore.resumeState(job.id());
+        Map<String, TrackedSource> checkpointed = staged.resumable() ? jobStore.checkpoints(job.id()) : Map.of();
+        if (staged.resumes(activeGeneration, checkpointed.size())) {
+            generation = staged.generation();
+            generationStore.resumeLoad(collection, generation, checkpointed.keySet());
+        } else {
+            if (staged.resumable()) {
+                log.warn("Staged rows of ingestion job {} in collection {} are no longer intact; starting the load over.", job.id(), collection);
             }
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Failed to read documents: " + e.getMessage(), e);
+            generation = generationStore.beginLoad(collection, activeGeneration);
+            jobStore.startGeneration(job);
+            checkpointed = Map.of();
         }
+        job.generation(generation);
+        job.resumable(false);
 
-        replaceChunksInDatabase(newChunks);
+        // Checkpointed sources look unchanged to the pipeline, so their staged rows are kept as they are.
+        Map<String, TrackedSource> knownSources = fingerprintStore.loadAll(collection);
+        knownSources.putAll(checkpointed);
+        ChunkWriter writer = new ChunkWriter(generation, job, checkpointed);
 
-        return new RagLoadResponse(loadedSources.size(), newChunks.size(), loadedSources);
+        // Rows are committed batch by batch into the shadow generation; readers keep using the
+        // active one until the single-row switch below. A load that stops early leaves them staged
+        // for a resume; the next fresh load discards them.
+        try {
+            generationStore.retireUntracked(collection, generation);
+            ingestionPipeline.run(inputPath, knownSources, writer);
+            writer.flush();
+            job.checkNotCancelled();
+            transactionTemplate.executeWithoutResult(status -> {
+                fingerprintStore.deleteAll(collection, writer.removedSources);
+                fingerprintStore.saveAll(collection, writer.updatedSources);
+                corpusStatistics.recordLoad(collection, generation, writer.replacedSources());
+                jobStore.deleteCheckpoints(job.id());
+                generationStore.activate(collection, activeGeneration, generation);
+            });
+        } catch (RuntimeException e) {
+            job.resumable(true);
+            throw e;
+        }
+        corpusStatistics.refresh(collection);
+        vectorStore.generationActivated(collection, activeGeneration, generation);
+        answerCache.invalidate(collection);
+        generationStore.purgeRetired(collection, generation);
+        indexManager.afterLoad(collection);
+
+        return new RagLoadResponse(
+                writer.loadedSources.size(),
+                writer.loadedChunks,
+                writer.loadedSources,
+                writer.changedFiles,
+                writer.unchangedFiles,
+                writer.removedSources.size(),
+                writer.embeddedChunks
+        );
     }
 
-    private void replaceChunksInDatabase(List<DocumentChunk> chunks) {
-        jdbcTemplate.update(DELETE_ALL_CHUNKS_SQL);
-        if (chunks.isEmpty()) {
-            return;
+    /**
+     * Receives pipeline output on the loading thread and writes rows of {@code generation} of the
+     * job's collection in batches of {@code writeBatchSize}. Fingerprints are kept until the generation is activated.
+     * Once every row of a source is written, the source is checkpointed for {@code job}.
+     */
+    private final class ChunkWriter implements RagIngestionPipeline.IngestionSink {
+
+        private final String collection;
+        private final long generation;
+        private final IngestionJob job;
+        private final Map<String, TrackedSource> checkpointed;
+        private final List<DocumentChunk> pendingChunks = new ArrayList<>();
+        private final List<TrackedSource> updatedSources = new ArrayList<>();
+        private final List<String> removedSources = new ArrayList<>();
+        private final List<String> changedSources = new ArrayList<>();
+        private final List<String> loadedSources = new ArrayList<>();
+        private final Map<String, TrackedSource> awaitingRows = new HashMap<>();
+        private final Map<String, Integer> writtenRows = new HashMap<>();
+        private int loadedChunks;
+        private int changedFiles;
+        private int unchangedFiles;
+        private int embeddedChunks;
+
+        private ChunkWriter(long generation, IngestionJob job, Map<String, TrackedSource> checkpointed) {
+            this.collection = job.collection();
+            this.generation = generation;
+            this.job = job;
+            this.checkpointed = checkpointed;
+        }
+
+        @Override
+        public void sourceUnchanged(TrackedSource source, boolean fingerprintChanged) {
+            job.checkNotCancelled();
+            job.filesSeen.incrementAndGet();
+            if (checkpointed.containsKey(source.sourcePath())) {
+                // Written by the interrupted run of this job; its rows are already in this generation.
+                job.resumedFiles.incrementAndGet();
+                changedFiles++;
+                changedSources.add(source.sourcePath());
+                recordLoaded(source);
+                updatedSources.add(source);
+                return;
+            }
+            job.unchangedFiles.incrementAndGet();
+            unchangedFiles++;
+            recordLoaded(source);
+            if (fingerprintChanged) {
+                updatedSources.add(source);
+            }
         }
 
-        jdbcTemplate.batchUpdate(
-                INSERT_CHUNK_SQL,
-                chunks,
-                200,
-                (ps, chunk) -> {
-                    ps.setString(1, chunk.source());
-                    ps.setInt(2, chunk.chunkIndex());
-                    ps.setString(3, chunk.text());
-                    ps.setString(4, toVectorLiteral(chunk.embedding()));
+        @Override
+        public void sourceChanged(TrackedSource source, boolean replacesExisting) {
+            job.checkNotCancelled();
+            job.filesSeen.incrementAndGet();
+            job.changedFiles.incrementAndGet();
+            changedFiles++;
+            changedSources.add(source.sourcePath());
+            if (checkpointed.containsKey(source.sourcePath())) {
+                // Changed again since it was checkpointed.
+                generationStore.discardStagedSource(collection, source.sourcePath(), generation);
+            }
+            if (replacesExisting) {
+                generationStore.retireSources(collection, List.of(source.sourcePath()), generation);
+            }
+        }
+
+        @Override
+        public void sourceChunked(TrackedSource source) {
+            recordLoaded(source);
+            updatedSources.add(source);
+            awaitingRows.put(source.sourcePath(), source);
+        }
+
+        @Override
+        public void chunksEmbedded(List<DocumentChunk> chunks) {
+            job.checkNotCancelled();
+            job.chunksEmbedded.addAndGet(chunks.size());
+            embeddedChunks += chunks.size();
+            pendingChunks.addAll(chunks);
+            if (pendingChunks.size() >= writeBatchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void sourcesRemoved(List<String> sourcePaths) {
+            removedSources.addAll(sourcePaths);
+            generationStore.retireSources(collection, sourcePaths, generation);
+            for (String sourcePath : sourcePaths) {
+                if (checkpointed.containsKey(sourcePath)) {
+                    generationStore.discardStagedSource(collection, sourcePath, generation);
                 }
-        );
+            }
+        }
+
+        private List<String> replacedSources() {
+            List<String> replaced = new ArrayList<>(changedSources);
+            replaced.addAll(removedSources);
+            return replaced;
+        }
+
+        private void recordLoaded(TrackedSource source) {
+            if (source.chunkCount() > 0) {
+                loadedSources.add(source.sourcePath());
+                loadedChunks += source.chunkCount();
+            }
+        }
+
+        private void flush() {
+            insertChunks(collection, pendingChunks, generation);
+            job.rowsWritten.addAndGet(pendingChunks.size());
+            for (DocumentChunk chunk : pendingChunks) {
+                writtenRows.merge(chunk.sourcePath(), 1, Integer::sum);
+            }
+            pendingChunks.clear();
+            checkpoint();
+        }
+
+        private void checkpoint() {
+            List<TrackedSource> completed = new ArrayList<>();
+            for (TrackedSource source : awaitingRows.values()) {
+                if (writtenRows.getOrDefault(source.sourcePath(), 0) >= source.chunkCount()) {
+                    completed.add(source);
+                }
+            }
+            if (completed.isEmpty()) {
+                return;
+            }
+            for (TrackedSource source : completed) {
+                awaitingRows.remove(source.sourcePath());
+                writtenRows.remove(source.sourcePath());
+            }
+            jobStore.saveCheckpoints(job.id(), completed);
+            jobStore.update(job);
+        }
     }
 
-    private void loadSingleFile(Path file, List<String> loadedSources, List<DocumentChunk> newChunks) {
-        String text = extractText(file);
-        if (text == null || text.isBlank()) {
+    private void insertChunks(String collection, List<DocumentChunk> chunks, long generation) {
+        if (chunks.isEmpty()) {
             return;
         }
 
-        List<String> chunks = chunkText(text);
-        int index = 0;
-        for (String chunkText : chunks) {
-            float[] embedding = embeddingModel.embed(chunkText);
-            newChunks.add(new DocumentChunk(file.getFileName().toString(), index++, chunkText, embedding));
-        }
-        loadedSources.add(file.toAbsolutePath().toString());
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (BinaryCopyWriter copy = BinaryCopyWriter.open(connection, COPY_CHUNKS_SQL)) {
+                for (DocumentChunk chunk : chunks) {
+                    copy.startRow(7)
+                            .writeText(collection)
+                            .writeText(chunk.sourcePath())
+                            .writeText(chunk.source())
+                            .writeInt(chunk.chunkIndex())
+                            .writeText(chunk.text())
+                            .writeVector(chunk.embedding())
+                            .writeLong(generation);
+                }
+                return copy.finish();
+            }
+        });
     }
 
     private String normalizePathInput(String pathInput) {
@@ -134,46 +403,208 @@ public class RagService {
         return trimmed;
     }
 
-    public synchronized RagAnswerResponse ask(String question, int topK) {
-        if (question == null || question.isBlank()) {
-            throw new IllegalArgumentException("Question is required.");
+    public RagCorpusStats stats(String collection) {
+        return corpusStatistics.current(requireCollection(collection));
+    }
+
+    public RagAnswerResponse ask(String collection, String question, int topK, SearchProfile profile) {
+        Retrieval retrieval = retrieve(requireCollection(collection), question, topK, profile);
+        if (retrieval.cachedAnswer() != null) {
+            return retrieval.cachedAnswer();
         }
-        Integer chunkCount = jdbcTemplate.queryForObject(COUNT_CHUNKS_SQL, Integer.class);
-        if (chunkCount == null || chunkCount == 0) {
-            throw new IllegalArgumentException("No documents loaded. Load documents first using /rag/load.");
+        String answer = answer(retrieval, UpstreamGovernor.Priority.INTERACTIVE);
+        return complete(retrieval, answer);
+    }
+
+    /**
+     * Streams a RAG answer as server-sent events: {@code retrieval} with the matched sources and chunks
+     * as soon as the vector search returns, then one {@code token} event per streamed piece of the
+     * answer, then a {@code summary}. Embedding and retrieval run on the bounded elastic scheduler.
+     */
+    public Flux<ServerSentEvent<Object>> askStream(String collection, String question, int topK, SearchProfile profile) {
+        long started = System.nanoTime();
+        String name = requireCollection(collection);
+        validateQuestion(name, question);
+        return Mono.fromCallable(() -> retrieve(name, question, topK, profile))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(retrieval -> {
+                    long retrievalMillis = (System.nanoTime() - started) / 1_000_000;
+                    ServerSentEvent<Object> retrievalEvent = event("retrieval", new RagRetrievalEvent(
+                            retrieval.cachedAnswer() != null ? retrieval.cachedAnswer().getSources() : sourcesOf(retrieval.chunks()),
+                            retrieval.chunks().stream()
+                                    .map(chunk -> new RagRetrievedChunk(chunk.source(), chunk.chunkIndex()))
+                                    .toList(),
+                            retrieval.cachedAnswer() != null,
+                            retrievalMillis
+                    ));
+
+                    if (retrieval.cachedAnswer() != null) {
+                        String answer = retrieval.cachedAnswer().getAnswer();
+                        return Flux.just(
+                                retrievalEvent,
+                                event("token", answer),
+                                event("summary", summary(retrieval, answer, retrievalMillis, started))
+                        );
+                    }
+
+                    StringBuilder answer = new StringBuilder();
+                    Flux<ServerSentEvent<Object>> tokens = upstreamGovernor
+                            .stream(chatModel, UpstreamGovernor.Priority.INTERACTIVE, answerTokens(retrieval),
+                                    () -> prompt(retrieval).stream().content())
+                            .doOnNext(answer::append)
+                            .map(token -> event("token", token));
+                    Mono<ServerSentEvent<Object>> summary = Mono.fromSupplier(() -> {
+                        complete(retrieval, answer.toString());
+                        return event("summary", summary(retrieval, answer.toString(), retrievalMillis, started));
+                    });
+                    return Flux.concat(Flux.just(retrievalEvent), tokens, summary);
+                });
+    }
+
+    /**
+     * Answers {@code questions} against one collection. All questions are embedded in one call (minus
+     * cache hits); each then runs its own search and chat completion on a virtual thread. Searches
+     * share {@code rag.batch.retrieval-concurrency} permits, so a batch holds at most that many pooled
+     * connections, and chat completions share {@code rag.batch.answer-concurrency} permits. Both limits
+     * apply across all batches on this node. Model calls of a batch are bulk work for the
+     * {@link UpstreamGovernor}, so interactive questions go ahead of them. Results come back in
+     * question order; a question that fails carries its error instead of failing the batch.
+     */
+    public RagBatchAskResponse askBatch(String collection, List<String> questions, int topK, SearchProfile profile) {
+        long started = System.nanoTime();
+        String name = requireCollection(collection);
+        if (questions == null || questions.isEmpty()) {
+            throw new IllegalArgumentException("At least one question is required.");
+        }
+        if (questions.size() > maxBatchQuestions) {
+            throw new IllegalArgumentException("Too many questions: " + questions.size() + " (at most " + maxBatchQuestions + " per batch).");
+        }
+        for (String question : questions) {
+            validateQuestion(name, question);
         }
 
         int safeTopK = Math.max(1, Math.min(topK, 8));
-        float[] queryEmbedding = embeddingModel.embed(question);
-        String queryEmbeddingLiteral = toVectorLiteral(queryEmbedding);
-
-        List<DocumentChunk> matchedChunks = jdbcTemplate.query(
-            SELECT_TOP_CHUNKS_SQL,
-            (rs, rowNum) -> new DocumentChunk(
-                rs.getString("source"),
-                rs.getInt("chunk_index"),
-                rs.getString("content"),
-                null
-            ),
-            queryEmbeddingLiteral,
-            safeTopK
-        );
+        long cacheEpoch = answerCache.epoch(name);
+        List<float[]> embeddings = embeddingCache.embedAll(questions, UpstreamGovernor.Priority.BULK);
+        long embeddingMillis = (System.nanoTime() - started) / 1_000_000;
+
+        List<Future<RagBatchAnswer>> futures = new ArrayList<>(questions.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < questions.size(); i++) {
+                int index = i;
+                futures.add(executor.submit(() -> answerInBatch(
+                        name, index, questions.get(index), cacheEpoch, embeddings.get(index), safeTopK, profile, started)));
+            }
+        }
 
-        StringBuilder contextBuilder = new StringBuilder();
-        LinkedHashSet<String> sourceSet = new LinkedHashSet<>();
+        RagBatchAskResponse response = new RagBatchAskResponse();
+        response.setCollection(name);
+        response.setQuestionCount(questions.size());
+        response.setEmbeddingMillis(embeddingMillis);
+        for (Future<RagBatchAnswer> future : futures) {
+            RagBatchAnswer answer = resultOf(future);
+            response.getResults().add(answer);
+            if (answer.getError() != null) {
+                response.setFailedCount(response.getFailedCount() + 1);
+            } else if (answer.isCached()) {
+                response.setCachedCount(response.getCachedCount() + 1);
+            }
+        }
+        response.setTotalMillis((System.nanoTime() - started) / 1_000_000);
+        return response;
+    }
 
-        for (DocumentChunk chunk : matchedChunks) {
-            sourceSet.add(chunk.source());
-            contextBuilder.append("Source: ")
-                    .append(chunk.source())
-                    .append(" | Chunk: ")
-                    .append(chunk.chunkIndex())
-                    .append("\n")
-                    .append(chunk.text())
-                    .append("\n\n");
+    private RagBatchAnswer answerInBatch(String collection, int index, String question, long cacheEpoch, float[] queryEmbedding,
+                                         int topK, SearchProfile profile, long batchStarted) throws InterruptedException {
+        RagBatchAnswer result = new RagBatchAnswer();
+        result.setIndex(index);
+        result.setQuestion(question);
+        try {
+            long retrievalStarted = System.nanoTime();
+            Retrieval retrieval;
+            retrievalPermits.acquire();
+            try {
+                retrieval = retrieve(collection, question, cacheEpoch, queryEmbedding, topK, profile);
+            } finally {
+                retrievalPermits.release();
+            }
+            long answerStarted = System.nanoTime();
+            result.setRetrievalMillis((answerStarted - retrievalStarted) / 1_000_000);
+
+            RagAnswerResponse response = retrieval.cachedAnswer();
+            if (response == null) {
+                String answer;
+                answerPermits.acquire();
+                try {
+                    answer = answer(retrieval, UpstreamGovernor.Priority.BULK);
+                } finally {
+                    answerPermits.release();
+                }
+                response = complete(retrieval, answer);
+            }
+            result.setAnswerMillis((System.nanoTime() - answerStarted) / 1_000_000);
+            result.setAnswer(response.getAnswer());
+            result.setSources(response.getSources());
+            result.setMatchedChunks(response.getMatchedChunks());
+            result.setContextTokens(response.getContextTokens());
+            result.setSavedContextTokens(response.getSavedContextTokens());
+            result.setCached(retrieval.cachedAnswer() != null);
+        } catch (RuntimeException e) {
+            result.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        result.setTotalMillis((System.nanoTime() - batchStarted) / 1_000_000);
+        return result;
+    }
+
+    private static RagBatchAnswer resultOf(Future<RagBatchAnswer> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while answering the batch.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch question failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private Retrieval retrieve(String collection, String question, int topK, SearchProfile profile) {
+        validateQuestion(collection, question);
+        int safeTopK = Math.max(1, Math.min(topK, 8));
+        long cacheEpoch = answerCache.epoch(collection);
+        float[] queryEmbedding = embeddingCache.embed(question);
+        return retrieve(collection, question, cacheEpoch, queryEmbedding, safeTopK, profile);
+    }
+
+    private Retrieval retrieve(String collection, String question, long cacheEpoch, float[] queryEmbedding,
+                               int safeTopK, SearchProfile profile) {
+        RagAnswerResponse cachedAnswer = answerCache.lookup(collection, queryEmbedding, safeTopK);
+        if (cachedAnswer != null) {
+            return new Retrieval(collection, question, safeTopK, cacheEpoch, queryEmbedding, List.of(), null, cachedAnswer);
+        }
+        List<DocumentChunk> matchedChunks = vectorStore.search(collection, queryEmbedding, safeTopK, profile);
+        ContextPacker.PackedContext context = contextPacker.pack(matchedChunks);
+        return new Retrieval(collection, question, safeTopK, cacheEpoch, queryEmbedding, matchedChunks, context, null);
+    }
+
+    private void validateQuestion(String collection, String question) {
+        if (question == null || question.isBlank()) {
+            throw new IllegalArgumentException("Question is required.");
         }
+        if (corpusStatistics.isEmpty(collection)) {
+            throw new IllegalArgumentException("No documents loaded in collection " + collection + ". Load documents first using /rag/load.");
+        }
+    }
+
+    private String answer(Retrieval retrieval, UpstreamGovernor.Priority priority) {
+        return upstreamGovernor.call(chatModel, priority, answerTokens(retrieval), () -> prompt(retrieval).call().content());
+    }
+
+    private long answerTokens(Retrieval retrieval) {
+        return upstreamGovernor.chatTokens(retrieval.question(), retrieval.context().text());
+    }
 
-        String answer = chatClient
+    private ChatClient.ChatClientRequestSpec prompt(Retrieval retrieval) {
+        return chatClient
                 .prompt()
                 .system("""
                         You are a RAG assistant. Use only the provided context to answer.
@@ -186,78 +617,49 @@ public class RagService {
 
                         Context:
                         %s
-                        """.formatted(question, contextBuilder))
-                .call()
-                .content();
-
-        return new RagAnswerResponse(answer, new ArrayList<>(sourceSet), matchedChunks.size());
-    }
-
-    private String toVectorLiteral(float[] embedding) {
-        StringBuilder builder = new StringBuilder("[");
-        for (int i = 0; i < embedding.length; i++) {
-            builder.append(embedding[i]);
-            if (i < embedding.length - 1) {
-                builder.append(',');
-            }
-        }
-        builder.append(']');
-        return builder.toString();
+                        """.formatted(retrieval.question(), retrieval.context().text()));
     }
 
-    private boolean isSupported(Path file) {
-        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
-        return fileName.endsWith(".pdf")
-                || fileName.endsWith(".txt")
-                || fileName.endsWith(".md")
-                || fileName.endsWith(".html")
-                || fileName.endsWith(".htm");
+    private RagAnswerResponse complete(Retrieval retrieval, String answer) {
+        RagAnswerResponse response = new RagAnswerResponse(answer, sourcesOf(retrieval.chunks()), retrieval.chunks().size());
+        response.setContextTokens(retrieval.context().tokens());
+        response.setSavedContextTokens(retrieval.context().savedTokens());
+        answerCache.put(retrieval.collection(), retrieval.cacheEpoch(), retrieval.queryEmbedding(), retrieval.topK(), response);
+        return response;
     }
 
-    private String extractText(Path file) {
-        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
-
-        try {
-            if (fileName.endsWith(".pdf")) {
-                return extractPdfText(file);
-            }
-            if (fileName.endsWith(".html") || fileName.endsWith(".htm")) {
-                String html = Files.readString(file, StandardCharsets.UTF_8);
-                return Jsoup.parse(html).text();
-            }
-            return Files.readString(file, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            return "";
+    private static List<String> sourcesOf(List<DocumentChunk> chunks) {
+        LinkedHashSet<String> sourceSet = new LinkedHashSet<>();
+        for (DocumentChunk chunk : chunks) {
+            sourceSet.add(chunk.source());
         }
+        return new ArrayList<>(sourceSet);
     }
 
-    private String extractPdfText(Path file) throws IOException {
-        try (PDDocument document = PDDocument.load(file.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
-        }
+    private static RagStreamSummary summary(Retrieval retrieval, String answer, long retrievalMillis, long started) {
+        RagAnswerResponse cached = retrieval.cachedAnswer();
+        return new RagStreamSummary(
+                cached != null ? cached.getMatchedChunks() : retrieval.chunks().size(),
+                answer.length(),
+                cached != null ? cached.getContextTokens() : retrieval.context().tokens(),
+                cached != null ? cached.getSavedContextTokens() : retrieval.context().savedTokens(),
+                retrieval.cachedAnswer() != null,
+                retrievalMillis,
+                (System.nanoTime() - started) / 1_000_000
+        );
     }
 
-    private List<String> chunkText(String text) {
-        String normalized = text.replaceAll("\\s+", " ").trim();
-        List<String> chunks = new ArrayList<>();
-
-        if (normalized.isBlank()) {
-            return chunks;
-        }
-
-        int start = 0;
-        while (start < normalized.length()) {
-            int end = Math.min(start + CHUNK_SIZE, normalized.length());
-            chunks.add(normalized.substring(start, end));
-            if (end == normalized.length()) {
-                break;
-            }
-            start = Math.max(0, end - CHUNK_OVERLAP);
-        }
-        return chunks;
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
     }
 
-    private record DocumentChunk(String source, int chunkIndex, String text, float[] embedding) {
+    private record Retrieval(String collection,
+                             String question,
+                             int topK,
+                             long cacheEpoch,
+                             float[] queryEmbedding,
+                             List<DocumentChunk> chunks,
+                             ContextPacker.PackedContext context,
+                             RagAnswerResponse cachedAnswer) {
     }
 }
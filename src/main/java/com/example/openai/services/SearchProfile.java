@@ -0,0 +1,56 @@
+package com.example.openai.services;
+
+import java.util.Locale;
+
+/**
+ * Latency/recall trade-off for one {@code /rag/ask} query. It scales {@code ivfflat.probes} from the
+ * index's list count and {@code hnsw.ef_search} from its default of 40.
+ */
+public enum SearchProfile {
+
+    FAST(0.5, 0.5),
+    BALANCED(1, 1),
+    ACCURATE(4, 5);
+
+    private static final int DEFAULT_EF_SEARCH = 40;
+
+    private final double probesFactor;
+    private final double efSearchFactor;
+
+    SearchProfile(double probesFactor, double efSearchFactor) {
+        this.probesFactor = probesFactor;
+        this.efSearchFactor = efSearchFactor;
+    }
+
+    public static SearchProfile fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return BALANCED;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported search profile: " + value + " (expected fast, balanced or accurate).", e);
+        }
+    }
+
+    /**
+     * Probes for an ivfflat index with {@code lists} lists: {@code sqrt(lists)} for {@code BALANCED}.
+     */
+    public int probes(int lists) {
+        return (int) Math.max(1, Math.min(lists, Math.round(Math.sqrt(lists) * probesFactor)));
+    }
+
+    /**
+     * {@code ef_search} that still returns at least {@code candidates} rows.
+     */
+    public int efSearch(int candidates) {
+        return (int) Math.max(candidates, Math.round(DEFAULT_EF_SEARCH * efSearchFactor));
+    }
+
+    /**
+     * Scales a configured beam width, for indexes that do not use {@code hnsw.ef_search}.
+     */
+    public int scale(int efSearch) {
+        return (int) Math.max(1, Math.round(efSearch * efSearchFactor));
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.openai.services;
+
+import com.example.openai.models.RagAnswerResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Remembers {@code /rag/ask} answers by question embedding. A question whose embedding has cosine
+ * similarity of at least {@code rag.answer-cache.similarity-threshold} with a cached question for the
+ * same collection and topK gets the cached answer back.
+ * <p>
+ * Unit-length embeddings are kept in one flat {@code float[]} and scanned with a dot product, so a
+ * lookup is a few hundred thousand multiply-adds on the heap, with no database round trip. The oldest
+ * entry is replaced once {@code rag.answer-cache.max-entries} is reached. {@link #invalidate} drops the
+ * answers of one collection and moves that collection to a new epoch; answers computed under an older
+ * epoch are dropped in {@link #put}, so a question that raced with a reload cannot bring back a stale
+ * answer. Answers of other collections stay cached.
+ */
+@Component
+public class SemanticAnswerCache {
+
+    private final double similarityThreshold;
+    private final int maxEntries;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private float[] vectors;
+    private int[] topKs;
+    private String[] collections;
+    private RagAnswerResponse[] answers;
+    private int dimensions;
+    private int size;
+    private int next;
+    private final Map<String, Long> epochs = new HashMap<>();
+
+    public SemanticAnswerCache(@Value("${rag.answer-cache.similarity-threshold:0.95}") double similarityThreshold,
+                               @Value("${rag.answer-cache.max-entries:512}") int maxEntries) {
+        this.similarityThreshold = similarityThreshold;
+        this.maxEntries = Math.max(0, maxEntries);
+    }
+
+    /**
+     * Token to pass back to {@link #put}; it changes every time {@code collection} is invalidated.
+     */
+    public long epoch(String collection) {
+        lock.readLock().lock();
+        try {
+            return epochs.getOrDefault(collection, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the closest cached answer for {@code collection} and {@code topK}, or
+     * {@code null} when none is similar enough.
+     */
+    public RagAnswerResponse lookup(String collection, float[] embedding, int topK) {
+        if (maxEntries == 0) {
+            return null;
+        }
+        float[] query = normalize(embedding);
+
+        lock.readLock().lock();
+        try {
+            if (size == 0 || query.length != dimensions) {
+                return null;
+            }
+            int best = -1;
+            double bestSimilarity = similarityThreshold;
+            for (int row = 0; row < size; row++) {
+                if (topKs[row] != topK || !collection.equals(collections[row])) {
+                    continue;
+                }
+                int offset = row * dimensions;
+                double similarity = 0;
+                for (int i = 0; i < dimensions; i++) {
+                    similarity += query[i] * vectors[offset + i];
+                }
+                if (similarity >= bestSimilarity) {
+                    bestSimilarity = similarity;
+                    best = row;
+                }
+            }
+            return best < 0 ? null : copyOf(answers[best]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(String collection, long expectedEpoch, float[] embedding, int topK, RagAnswerResponse answer) {
+        if (maxEntries == 0) {
+            return;
+        }
+        float[] vector = normalize(embedding);
+
+        lock.writeLock().lock();
+        try {
+            if (expectedEpoch != epochs.getOrDefault(collection, 0L)) {
+                return;
+            }
+            if (vectors == null || vector.length != dimensions) {
+                dimensions = vector.length;
+                vectors = new float[maxEntries * dimensions];
+                topKs = new int[maxEntries];
+                collections = new String[maxEntries];
+                answers = new RagAnswerResponse[maxEntries];
+                size = 0;
+                next = 0;
+            }
+            System.arraycopy(vector, 0, vectors, next * dimensions, dimensions);
+            topKs[next] = topK;
+            collections[next] = collection;
+            answers[next] = copyOf(answer);
+            next = (next + 1) % maxEntries;
+            size = Math.max(size, next == 0 ? maxEntries : next);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every cached answer of {@code collection}. Called whenever a load activates a new generation of it.
+     */
+    public void invalidate(String collection) {
+        lock.writeLock().lock();
+        try {
+            epochs.merge(collection, 1L, Long::sum);
+            for (int row = 0; row < size; row++) {
+                if (collection.equals(collections[row])) {
+                    collections[row] = null;
+                    answers[row] = null;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static float[] normalize(float[] embedding) {
+        double norm = 0;
+        for (float value : embedding) {
+            norm += value * value;
+        }
+        float[] unit = new float[embedding.length];
+        if (norm == 0) {
+            return unit;
+        }
+        double scale = 1.0 / Math.sqrt(norm);
+        for (int i = 0; i < embedding.length; i++) {
+            unit[i] = (float) (embedding[i] * scale);
+        }
+        return unit;
+    }
+
+    private static RagAnswerResponse copyOf(RagAnswerResponse answer) {
+        RagAnswerResponse copy = new RagAnswerResponse(answer.getAnswer(), new ArrayList<>(answer.getSources()), answer.getMatchedChunks());
+        copy.setContextTokens(answer.getContextTokens());
+        copy.setSavedContextTokens(answer.getSavedContextTokens());
+        return copy;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.openai.services;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class SourceFingerprintStore {
+
+    private static final String SELECT_SOURCES_SQL = """
+            SELECT source_path, size_bytes, last_modified_ms, content_hash, chunk_count
+            FROM rag_sources
+            WHERE collection = ?
+            """;
+    private static final String UPSERT_SOURCE_SQL = """
+            INSERT INTO rag_sources (collection, source_path, size_bytes, last_modified_ms, content_hash, chunk_count, loaded_at)
+            VALUES (?, ?, ?, ?, ?, ?, now())
+            ON CONFLICT (collection, source_path) DO UPDATE SET
+                size_bytes = EXCLUDED.size_bytes,
+                last_modified_ms = EXCLUDED.last_modified_ms,
+                content_hash = EXCLUDED.content_hash,
+                chunk_count = EXCLUDED.chunk_count,
+                loaded_at = EXCLUDED.loaded_at
+            """;
+    private static final String DELETE_SOURCE_SQL = "DELETE FROM rag_sources WHERE collection = ? AND source_path = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SourceFingerprintStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Map<String, TrackedSource> loadAll(String collection) {
+        Map<String, TrackedSource> sources = new HashMap<>();
+        jdbcTemplate.query(SELECT_SOURCES_SQL, rs -> {
+            TrackedSource source = new TrackedSource(
+                    rs.getString("source_path"),
+                    rs.getLong("size_bytes"),
+                    rs.getLong("last_modified_ms"),
+                    rs.getString("content_hash"),
+                    rs.getInt("chunk_count")
+            );
+            sources.put(source.sourcePath(), source);
+        }, collection);
+        return sources;
+    }
+
+    void saveAll(String collection, List<TrackedSource> sources) {
+        if (sources.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                UPSERT_SOURCE_SQL,
+                sources,
+                200,
+                (ps, source) -> {
+                    ps.setString(1, collection);
+                    ps.setString(2, source.sourcePath());
+                    ps.setLong(3, source.sizeBytes());
+                    ps.setLong(4, source.lastModifiedMs());
+                    ps.setString(5, source.contentHash());
+                    ps.setInt(6, source.chunkCount());
+                }
+        );
+    }
+
+    void deleteAll(String collection, Collection<String> sourcePaths) {
+        if (sourcePaths.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                DELETE_SOURCE_SQL,
+                sourcePaths,
+                200,
+                (ps, sourcePath) -> {
+                    ps.setString(1, collection);
+                    ps.setString(2, sourcePath);
+                }
+        );
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.openai.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SchemaValidatorsConfig;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * JSON schemas that structured model output is validated against. A schema is parsed and compiled
+ * into a networknt {@link JsonSchema} once, when it is registered; validating output then only walks
+ * the compiled validators. Endpoints register their schema by name and use {@link #schema} for the
+ * prompt and {@link #read} for the response.
+ */
+@Component
+public class StructuredOutputRegistry {
+
+    private static final String FAILED_PREFIX = "LLM output failed JSON schema validation: ";
+
+    private final ObjectMapper objectMapper;
+    private final JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V202012);
+    private final SchemaValidatorsConfig validatorsConfig = SchemaValidatorsConfig.builder().build();
+    private final Map<String, CompiledSchema> schemas = new ConcurrentHashMap<>();
+
+    public StructuredOutputRegistry(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Compiles {@code schema} under {@code name}. Registering the same schema again is a no-op;
+     * registering a different one under a taken name fails.
+     */
+    public void register(String name, String schema) {
+        CompiledSchema compiled = schemas.computeIfAbsent(name, key -> compile(key, schema));
+        if (!compiled.source().equals(schema)) {
+            throw new IllegalStateException("A different JSON schema is already registered as " + name + ".");
+        }
+    }
+
+    /**
+     * Source text of the schema registered as {@code name}, for use in prompts.
+     */
+    public String schema(String name) {
+        return find(name).source();
+    }
+
+    /**
+     * Parses {@code output}, validates it against the schema registered as {@code name} and returns the tree.
+     * A surrounding markdown code fence is ignored.
+     */
+    public JsonNode validate(String name, String output) {
+        CompiledSchema compiled = find(name);
+        if (output == null || output.isBlank()) {
+            throw new IllegalArgumentException("Model returned empty content.");
+        }
+        JsonNode outputNode;
+        try {
+            outputNode = objectMapper.readTree(stripCodeFence(output));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Model response is not valid JSON.", e);
+        }
+        Set<ValidationMessage> errors = compiled.schema().validate(outputNode);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(FAILED_PREFIX + errors.stream()
+                    .map(ValidationMessage::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return outputNode;
+    }
+
+    /**
+     * Validates {@code output} like {@link #validate} and binds it to {@code type}.
+     */
+    public <T> T read(String name, String output, Class<T> type) {
+        JsonNode outputNode = validate(name, output);
+        try {
+            return objectMapper.treeToValue(outputNode, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Model response does not match " + type.getSimpleName() + ".", e);
+        }
+    }
+
+    private CompiledSchema find(String name) {
+        CompiledSchema compiled = schemas.get(name);
+        if (compiled == null) {
+            throw new IllegalStateException("No JSON schema registered as " + name + ".");
+        }
+        return compiled;
+    }
+
+    private CompiledSchema compile(String name, String schema) {
+        try {
+            JsonSchema compiled = schemaFactory.getSchema(objectMapper.readTree(schema), validatorsConfig);
+            // Resolve every keyword validator now rather than on the first response.
+            compiled.initializeValidators();
+            return new CompiledSchema(schema, compiled);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON schema " + name + " is not valid JSON.", e);
+        }
+    }
+
+    static String stripCodeFence(String output) {
+        String trimmed = output.trim();
+        if (!trimmed.startsWith("```")) {
+            return trimmed;
+        }
+        int bodyStart = trimmed.indexOf('\n');
+        int bodyEnd = trimmed.lastIndexOf("```");
+        if (bodyStart < 0 || bodyEnd <= bodyStart) {
+            return trimmed;
+        }
+        return trimmed.substring(bodyStart + 1, bodyEnd).trim();
+    }
+
+    private record CompiledSchema(String source, JsonSchema schema) {
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.openai.services;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits text into chunks of at most {@value #CHUNK_SIZE} characters that overlap by about
+ * {@value #CHUNK_OVERLAP}. Whitespace runs are collapsed to one space while the input is read, so no
+ * normalized copy of the document is made, and chunks are produced one at a time from a fixed window.
+ * A chunk ends at the last paragraph break, sentence end or space within {@value #BOUNDARY_TOLERANCE}
+ * characters of the size limit, in that order of preference, and the next one starts on a word.
+ */
+@Component
+public class TextChunker {
+
+    static final int CHUNK_SIZE = 1200;
+    static final int CHUNK_OVERLAP = 200;
+    static final int BOUNDARY_TOLERANCE = 240;
+
+    public List<String> chunkText(String text) {
+        List<String> chunks = new ArrayList<>();
+        chunks(text).forEachRemaining(chunks::add);
+        return chunks;
+    }
+
+    public Iterator<String> chunks(CharSequence text) {
+        return new ChunkIterator(text, null);
+    }
+
+    /**
+     * Reads {@code reader} as chunks are requested; an {@link IOException} surfaces as {@link UncheckedIOException}.
+     * The reader is not closed.
+     */
+    public Iterator<String> chunks(Reader reader) {
+        return new ChunkIterator(null, reader);
+    }
+
+    private static final class ChunkIterator implements Iterator<String> {
+
+        private final CharSequence text;
+        private final Reader reader;
+        private final char[] readBuffer;
+        private int readPosition;
+        private int readLimit;
+
+        // Normalized text not yet released; paragraph[i] marks a space that replaced a blank line.
+        private final char[] window = new char[CHUNK_SIZE];
+        private final boolean[] paragraph = new boolean[CHUNK_SIZE];
+        private int length;
+        private int unemitted;
+
+        private boolean started;
+        private boolean inWhitespace;
+        private int newlines;
+        private boolean pendingSpace;
+        private boolean pendingParagraph;
+        private int pendingChar = -1;
+        private boolean finished;
+        private String next;
+
+        private ChunkIterator(CharSequence text, Reader reader) {
+            this.text = text;
+            this.reader = reader;
+            this.readBuffer = reader == null ? null : new char[8192];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String chunk = next;
+            next = null;
+            return chunk;
+        }
+
+        private String advance() {
+            while (true) {
+                if (length == window.length) {
+                    return cut();
+                }
+                if (pendingSpace) {
+                    append(' ', pendingParagraph);
+                    pendingSpace = false;
+                    continue;
+                }
+                if (pendingChar >= 0) {
+                    append((char) pendingChar, false);
+                    pendingChar = -1;
+                    continue;
+                }
+
+                int c = read();
+                if (c < 0) {
+                    return finish();
+                }
+                if (Character.isWhitespace(c)) {
+                    if (started) {
+                        inWhitespace = true;
+                        if (c == '\n') {
+                            newlines++;
+                        }
+                    }
+                    continue;
+                }
+                if (inWhitespace) {
+                    pendingSpace = true;
+                    pendingParagraph = newlines >= 2;
+                    inWhitespace = false;
+                    newlines = 0;
+                }
+                started = true;
+                pendingChar = c;
+            }
+        }
+
+        private void append(char c, boolean paragraphBreak) {
+            window[length] = c;
+            paragraph[length] = paragraphBreak;
+            length++;
+            unemitted++;
+        }
+
+        /**
+         * Emits the full window up to the best boundary and keeps the overlap for the next chunk.
+         */
+        private String cut() {
+            int end = boundary();
+            String chunk = new String(window, 0, end);
+
+            int start = end - CHUNK_OVERLAP;
+            int wordStart = start;
+            while (wordStart < end && window[wordStart - 1] != ' ') {
+                wordStart++;
+            }
+            start = wordStart < end ? wordStart : start;
+            while (start < end && window[start] == ' ') {
+                start++;
+            }
+            // Without a space to start on, the overlap may begin with the low half of a pair.
+            while (start < end && Character.isLowSurrogate(window[start])) {
+                start++;
+            }
+
+            unemitted = length - end;
+            length -= start;
+            System.arraycopy(window, start, window, 0, length);
+            System.arraycopy(paragraph, start, paragraph, 0, length);
+            return chunk;
+        }
+
+        private int boundary() {
+            int min = CHUNK_SIZE - BOUNDARY_TOLERANCE;
+            int sentence = -1;
+            int word = -1;
+            for (int i = length - 1; i >= min; i--) {
+                if (window[i] != ' ') {
+                    continue;
+                }
+                if (paragraph[i]) {
+                    return i;
+                }
+                if (sentence < 0 && isSentenceEnd(window[i - 1])) {
+                    sentence = i;
+                }
+                if (word < 0) {
+                    word = i;
+                }
+            }
+            if (sentence > 0) {
+                return sentence;
+            }
+            if (word > 0) {
+                return word;
+            }
+            return Character.isHighSurrogate(window[length - 1]) ? length - 1 : length;
+        }
+
+        private String finish() {
+            finished = true;
+            if (unemitted == 0 || length == 0) {
+                return null;
+            }
+            String chunk = new String(window, 0, length);
+            length = 0;
+            unemitted = 0;
+            return chunk;
+        }
+
+        private int read() {
+            if (reader == null) {
+                return readPosition < text.length() ? text.charAt(readPosition++) : -1;
+            }
+            if (readPosition == readLimit) {
+                try {
+                    readLimit = reader.read(readBuffer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                readPosition = 0;
+                if (readLimit <= 0) {
+                    readLimit = 0;
+                    return -1;
+                }
+            }
+            return readBuffer[readPosition++];
+        }
+
+        private static boolean isSentenceEnd(char c) {
+            return c == '.' || c == '!' || c == '?';
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.openai.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fingerprint of a loaded source file as stored in {@code rag_sources}.
+ */
+record TrackedSource(String sourcePath, long sizeBytes, long lastModifiedMs, String contentHash, int chunkCount) {
+
+    static String pathKey(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    static String contentHash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    TrackedSource withChunkCount(int newChunkCount) {
+        return new TrackedSource(sourcePath, sizeBytes, lastModifiedMs, contentHash, newChunkCount);
+    }
+
+    /**
+     * Fingerprint of a source that was only partly extracted. It matches no file, so the next load
+     * extracts the source again and replaces the partial chunks.
+     */
+    TrackedSource incomplete(int newChunkCount) {
+        return new TrackedSource(sourcePath, -1, -1, "", newChunkCount);
+    }
+}
@@ -0,0 +1,511 @@
+package com.example.openai.services;
+
+import com.example.openai.models.UpstreamModelStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Client-side admission control for every call to the model provider: chat, embeddings, images and
+ * speech. Each model gets its own lane with
+ * <ul>
+ *     <li>request and token budgets per minute, as token buckets refilled continuously
+ *     ({@code upstream.models.<model>.requests-per-minute} and {@code .tokens-per-minute}, falling
+ *     back to {@code upstream.requests-per-minute} and {@code upstream.tokens-per-minute}; 0 means
+ *     unlimited),</li>
+ *     <li>an adaptive concurrency limit (AIMD): it grows by one per limit's worth of successful calls
+ *     while the lane is saturated, and halves when the provider answers 429, at most once per burst of
+ *     calls sent before the previous halving,</li>
+ *     <li>a wait queue ordered by {@link Priority}, so interactive requests are admitted before bulk
+ *     work such as ingestion, and in arrival order within a priority.</li>
+ * </ul>
+ * Calls that fail with 429 or a transient server error are retried up to
+ * {@code upstream.retry.max-attempts} times with full-jitter exponential backoff. A {@code Retry-After}
+ * from the provider is honoured both by the retrying call and by the lane, which admits nothing for that
+ * model until it has passed.
+ */
+@Component
+public class UpstreamGovernor {
+
+    public enum Priority {
+        INTERACTIVE, BULK
+    }
+
+    /**
+     * A provider call. Interruption while it runs is reported like interruption while waiting for
+     * capacity, as an {@link IllegalStateException}.
+     */
+    @FunctionalInterface
+    public interface UpstreamCall<T, E extends Exception> {
+        T call() throws E, InterruptedException;
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamGovernor.class);
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final Environment environment;
+    private final long defaultRequestsPerMinute;
+    private final long defaultTokensPerMinute;
+    private final int initialConcurrency;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final int completionTokenEstimate;
+    private final TokenCountEstimator tokenCounter = new JTokkitTokenCountEstimator();
+    private final Map<String, ModelLane> lanes = new ConcurrentHashMap<>();
+
+    public UpstreamGovernor(Environment environment,
+                            @Value("${upstream.requests-per-minute:0}") long defaultRequestsPerMinute,
+                            @Value("${upstream.tokens-per-minute:0}") long defaultTokensPerMinute,
+                            @Value("${upstream.concurrency.initial:8}") int initialConcurrency,
+                            @Value("${upstream.concurrency.min:1}") int minConcurrency,
+                            @Value("${upstream.concurrency.max:64}") int maxConcurrency,
+                            @Value("${upstream.retry.max-attempts:4}") int maxAttempts,
+                            @Value("${upstream.retry.base-delay-millis:500}") long baseDelayMillis,
+                            @Value("${upstream.retry.max-delay-millis:30000}") long maxDelayMillis,
+                            @Value("${upstream.chat.completion-token-estimate:512}") int completionTokenEstimate) {
+        this.environment = environment;
+        this.defaultRequestsPerMinute = Math.max(0, defaultRequestsPerMinute);
+        this.defaultTokensPerMinute = Math.max(0, defaultTokensPerMinute);
+        this.minConcurrency = Math.max(1, minConcurrency);
+        this.maxConcurrency = Math.max(this.minConcurrency, maxConcurrency);
+        this.initialConcurrency = Math.clamp(initialConcurrency, this.minConcurrency, this.maxConcurrency);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.completionTokenEstimate = Math.max(0, completionTokenEstimate);
+    }
+
+    /**
+     * Tokens a chat call with these messages is charged before it runs: the prompt plus
+     * {@code upstream.chat.completion-token-estimate} for the answer.
+     */
+    public long chatTokens(String... messages) {
+        return promptTokens(Arrays.asList(messages)) + completionTokenEstimate;
+    }
+
+    /**
+     * Tokens of {@code texts} as sent to the provider, for embedding and speech calls.
+     */
+    public long promptTokens(List<String> texts) {
+        long tokens = 0;
+        for (String text : texts) {
+            tokens += promptTokens(text);
+        }
+        return tokens;
+    }
+
+    public long promptTokens(String text) {
+        return text == null || text.isEmpty() ? 0 : tokenCounter.estimate(text);
+    }
+
+    /**
+     * Runs {@code call} against {@code model} once the lane admits it, charging one request and
+     * {@code tokens} tokens, and retries it on 429 and transient errors.
+     */
+    public <T, E extends Exception> T call(String model, Priority priority, long tokens, UpstreamCall<T, E> call) throws E {
+        ModelLane lane = lane(model);
+        for (int attempt = 1; ; attempt++) {
+            Permit permit = lane.acquire(priority, tokens);
+            T result;
+            try {
+                result = call.call();
+            } catch (InterruptedException e) {
+                permit.release(null);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while calling " + model + ".", e);
+            } catch (Exception e) {
+                Failure failure = Failure.of(e);
+                permit.release(failure);
+                if (!failure.retryable() || attempt >= maxAttempts) {
+                    lane.failed.increment();
+                    throw e;
+                }
+                long delayNanos = backoffNanos(attempt, failure);
+                lane.retried.increment();
+                log.info("{} call {} ({}); retrying in {} ms, attempt {} of {}.", model,
+                        failure.throttled() ? "throttled" : "failed", e.getMessage(),
+                        TimeUnit.NANOSECONDS.toMillis(delayNanos), attempt + 1, maxAttempts);
+                sleep(model, delayNanos);
+                continue;
+            } catch (Error e) {
+                // Not a provider answer, so the limit is left alone, but the slot must still be handed back.
+                permit.release(Failure.of(e));
+                lane.failed.increment();
+                throw e;
+            }
+            permit.release(null);
+            return result;
+        }
+    }
+
+    /**
+     * Subscribes to the stream returned by {@code stream} once the lane admits it, and holds the slot
+     * until the stream terminates or is cancelled, including a cancel that arrives while the slot is
+     * being granted. Streams are not retried: part of the response may already have reached the client.
+     */
+    public <T> Flux<T> stream(String model, Priority priority, long tokens, Supplier<Flux<T>> stream) {
+        ModelLane lane = lane(model);
+        return Flux.defer(() -> {
+            StreamPermit held = new StreamPermit();
+            return Mono.fromCallable(() -> held.hold(lane.acquire(priority, tokens)))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapMany(permit -> {
+                        Flux<T> upstream;
+                        try {
+                            upstream = stream.get();
+                        } catch (RuntimeException e) {
+                            permit.release(Failure.of(e));
+                            return Flux.error(e);
+                        }
+                        return upstream.doOnError(e -> permit.release(Failure.of(e)));
+                    })
+                    .doFinally(signal -> held.finish());
+        });
+    }
+
+    public List<UpstreamModelStats> stats() {
+        return lanes.values().stream()
+                .sorted(Comparator.comparing(lane -> lane.model))
+                .map(ModelLane::stats)
+                .toList();
+    }
+
+    private ModelLane lane(String model) {
+        return lanes.computeIfAbsent(model, name -> new ModelLane(
+                name,
+                limit(name, "requests-per-minute", defaultRequestsPerMinute),
+                limit(name, "tokens-per-minute", defaultTokensPerMinute)
+        ));
+    }
+
+    private long limit(String model, String key, long defaultValue) {
+        Long value = environment.getProperty("upstream.models." + model + "." + key, Long.class);
+        return value != null ? Math.max(0, value) : defaultValue;
+    }
+
+    /**
+     * Full jitter: a uniform delay up to an exponentially growing ceiling, so that callers throttled
+     * together do not retry together. A {@code Retry-After} sets the minimum.
+     */
+    private long backoffNanos(int attempt, Failure failure) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (failure.retryAfterNanos() > 0) {
+            return failure.retryAfterNanos() + TimeUnit.MILLISECONDS.toNanos(random.nextLong(baseDelayMillis + 1));
+        }
+        long ceilingMillis = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        return TimeUnit.MILLISECONDS.toNanos(random.nextLong(ceilingMillis + 1));
+    }
+
+    private static void sleep(String model, long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off from " + model + ".", e);
+        }
+    }
+
+    /**
+     * Parses a {@code Retry-After} value, either delay-seconds or an HTTP date. Unparseable values count as absent.
+     */
+    static long parseRetryAfterNanos(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, (long) (Double.parseDouble(value) * 1_000_000_000L));
+        } catch (NumberFormatException e) {
+            try {
+                Instant until = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return Math.max(0, Duration.between(Instant.now(), until).toNanos());
+            } catch (DateTimeParseException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * How a failed call should affect its lane and whether it is worth retrying.
+     */
+    private record Failure(boolean throttled, boolean retryable, long retryAfterNanos) {
+
+        static Failure of(Throwable error) {
+            for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UpstreamHttpException http) {
+                    return ofStatus(http.statusCode(), http.retryAfter());
+                }
+                if (cause instanceof RestClientResponseException http) {
+                    return ofStatus(http.getStatusCode().value(),
+                            http.getResponseHeaders() != null ? http.getResponseHeaders().getFirst("Retry-After") : null);
+                }
+                if (cause instanceof WebClientResponseException http) {
+                    // Streamed chat calls go through WebClient.
+                    return ofStatus(http.getStatusCode().value(), http.getHeaders().getFirst("Retry-After"));
+                }
+                if (cause instanceof TransientAiException) {
+                    // Spring AI reports error responses as "<status> - <body>" without their headers.
+                    boolean throttled = cause.getMessage() != null && cause.getMessage().startsWith("429");
+                    return new Failure(throttled, true, 0);
+                }
+            }
+            return new Failure(false, false, 0);
+        }
+
+        private static Failure ofStatus(int status, String retryAfter) {
+            boolean throttled = status == 429;
+            return new Failure(throttled, throttled || status >= 500, parseRetryAfterNanos(retryAfter));
+        }
+    }
+
+    /**
+     * Budgets, concurrency limit and wait queue of one model. All state is guarded by {@link #lock}.
+     */
+    private final class ModelLane {
+
+        private final String model;
+        private final TokenBucket requests;
+        private final TokenBucket tokens;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final PriorityQueue<Waiter> waiting = new PriorityQueue<>();
+
+        private long sequence;
+        private int inFlight;
+        private double limit = initialConcurrency;
+        private long pausedUntil;
+        private long lastDecrease;
+
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder retried = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+
+        private ModelLane(String model, long requestsPerMinute, long tokensPerMinute) {
+            long now = System.nanoTime();
+            this.model = model;
+            this.requests = new TokenBucket(requestsPerMinute, now);
+            this.tokens = new TokenBucket(tokensPerMinute, now);
+            this.pausedUntil = now;
+            this.lastDecrease = now;
+        }
+
+        private Permit acquire(Priority priority, long tokenCount) {
+            long started = System.nanoTime();
+            lock.lock();
+            Waiter waiter = new Waiter(priority, sequence++);
+            waiting.add(waiter);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    if (waiting.peek() != waiter || inFlight >= (int) limit) {
+                        changed.await();
+                        continue;
+                    }
+                    long delay = Math.max(pausedUntil - now,
+                            Math.max(requests.nanosUntil(1, now), tokens.nanosUntil(tokenCount, now)));
+                    if (delay > 0) {
+                        changed.awaitNanos(delay);
+                        continue;
+                    }
+                    waiting.poll();
+                    requests.take(1, now);
+                    tokens.take(tokenCount, now);
+                    inFlight++;
+                    admitted.increment();
+                    waitNanos.add(now - started);
+                    // The next waiter may fit as well.
+                    changed.signalAll();
+                    return new Permit(this, now);
+                }
+            } catch (InterruptedException e) {
+                waiting.remove(waiter);
+                changed.signalAll();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + model + " capacity.", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(Permit permit, Failure failure) {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                boolean saturated = inFlight >= (int) limit;
+                inFlight--;
+                if (failure == null) {
+                    if (saturated) {
+                        limit = Math.min(maxConcurrency, limit + 1 / limit);
+                    }
+                } else if (failure.throttled()) {
+                    throttled.increment();
+                    // Calls sent before the last decrease were sent under the old limit; their 429s are the same signal.
+                    if (permit.admittedAt - lastDecrease > 0) {
+                        limit = Math.max(minConcurrency, limit / 2);
+                        lastDecrease = now;
+                    }
+                    if (failure.retryAfterNanos() > 0 && now + failure.retryAfterNanos() - pausedUntil > 0) {
+                        pausedUntil = now + failure.retryAfterNanos();
+                    }
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private UpstreamModelStats stats() {
+            UpstreamModelStats stats = new UpstreamModelStats();
+            lock.lock();
+            try {
+                stats.setConcurrencyLimit((int) limit);
+                stats.setInFlight(inFlight);
+                stats.setQueuedInteractive((int) waiting.stream().filter(w -> w.priority() == Priority.INTERACTIVE).count());
+                stats.setQueuedBulk((int) waiting.stream().filter(w -> w.priority() == Priority.BULK).count());
+                stats.setPausedForMillis(Math.max(0, TimeUnit.NANOSECONDS.toMillis(pausedUntil - System.nanoTime())));
+            } finally {
+                lock.unlock();
+            }
+            long admittedCalls = admitted.sum();
+            stats.setModel(model);
+            stats.setRequestsPerMinute(requests.perMinute);
+            stats.setTokensPerMinute(tokens.perMinute);
+            stats.setAdmitted(admittedCalls);
+            stats.setThrottled(throttled.sum());
+            stats.setRetried(retried.sum());
+            stats.setFailed(failed.sum());
+            stats.setAverageWaitMillis(admittedCalls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / admittedCalls));
+            return stats;
+        }
+    }
+
+    /**
+     * A slot in a lane, released exactly once.
+     */
+    private static final class Permit {
+
+        private final ModelLane lane;
+        private final long admittedAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(ModelLane lane, long admittedAt) {
+            this.lane = lane;
+            this.admittedAt = admittedAt;
+        }
+
+        private void release(Failure failure) {
+            if (released.compareAndSet(false, true)) {
+                lane.release(this, failure);
+            }
+        }
+    }
+
+    /**
+     * The permit of one stream subscription. Whichever of {@link #hold} and {@link #finish} runs second
+     * releases it, so a permit granted after the subscriber cancelled is not lost.
+     */
+    private static final class StreamPermit {
+
+        private final AtomicReference<Permit> permit = new AtomicReference<>();
+        private volatile boolean finished;
+
+        private Permit hold(Permit granted) {
+            permit.set(granted);
+            if (finished) {
+                granted.release(null);
+            }
+            return granted;
+        }
+
+        private void finish() {
+            finished = true;
+            Permit granted = permit.get();
+            if (granted != null) {
+                granted.release(null);
+            }
+        }
+    }
+
+    private record Waiter(Priority priority, long sequence) implements Comparable<Waiter> {
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Budget of {@code perMinute} units refilled continuously; 0 means unlimited. A single charge
+     * larger than the whole budget is capped to it, so it waits for a full bucket instead of forever.
+     * Not thread-safe; guarded by its lane's lock.
+     */
+    private static final class TokenBucket {
+
+        private final long perMinute;
+        private double available;
+        private long refilledAt;
+
+        private TokenBucket(long perMinute, long now) {
+            this.perMinute = perMinute;
+            this.available = perMinute;
+            this.refilledAt = now;
+        }
+
+        private long nanosUntil(long amount, long now) {
+            if (perMinute == 0) {
+                return 0;
+            }
+            refill(now);
+            double missing = Math.min(amount, perMinute) - available;
+            return missing <= 0 ? 0 : (long) Math.ceil(missing * NANOS_PER_MINUTE / perMinute);
+        }
+
+        private void take(long amount, long now) {
+            if (perMinute == 0) {
+                return;
+            }
+            refill(now);
+            available -= Math.min(amount, perMinute);
+        }
+
+        private void refill(long now) {
+            available = Math.min(perMinute, available + (now - refilledAt) * (double) perMinute / NANOS_PER_MINUTE);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.openai.services;
+
+import java.io.IOException;
+
+/**
+ * Error status returned by the provider to a request sent through {@link MediaTransport}, with its
+ * {@code Retry-After} header so that {@link UpstreamGovernor} can wait as long as the provider asks.
+ */
+public class UpstreamHttpException extends IOException {
+
+    private final int statusCode;
+    private final String retryAfter;
+
+    public UpstreamHttpException(int statusCode, String retryAfter) {
+        super("HTTP " + statusCode);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Raw {@code Retry-After} header, or {@code null} when the response had none.
+     */
+    public String retryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.openai.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Owns the vector index of each collection, {@code idx_rag_chunks_<collection>_embedding} on the
+ * collection's partition. Instead of a fixed {@code ivfflat (lists = 100)} created on an empty table,
+ * an index is built only once its collection has {@code rag.index.min-rows} chunks, so the first bulk
+ * load runs without index maintenance and ivfflat centroids are trained on real data. Collections are
+ * sized independently: a small collection next to a large one gets its own {@code lists}.
+ * After every load the index is compared with what the collection calls for: ivfflat is rebuilt
+ * when {@code lists} drifts more than 2x from {@code rows / 1000} (or {@code sqrt(rows)} past a
+ * million rows), and either method is rebuilt when its parameters or the quantization change.
+ * <p>
+ * Rebuilds run in the background with {@code CREATE INDEX CONCURRENTLY} under a temporary name,
+ * and replace the old index only when the new one is ready, so questions keep an index throughout.
+ * The parameters are stored as the index comment.
+ */
+@Component
+public class VectorIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexManager.class);
+
+    private static final String SELECT_INDEX_SQL = """
+            SELECT i.oid IS NOT NULL AS present, obj_description(i.oid, 'pg_class') AS spec
+            FROM (SELECT to_regclass(?) AS oid) i
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CorpusStatistics corpusStatistics;
+    private final RagCollections collections;
+    private final VectorQuantization quantization;
+    private final String method;
+    private final int m;
+    private final int efConstruction;
+    private final long minRows;
+
+    private final Set<String> reconcileRequested = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private final Map<String, VectorIndexSpec> currentSpecs = new ConcurrentHashMap<>();
+
+    public VectorIndexManager(JdbcTemplate jdbcTemplate,
+                              CorpusStatistics corpusStatistics,
+                              RagCollections collections,
+                              @Value("${rag.vector.quantization:none}") String quantization,
+                              @Value("${rag.index.method:ivfflat}") String method,
+                              @Value("${rag.index.hnsw.m:16}") int m,
+                              @Value("${rag.index.hnsw.ef-construction:64}") int efConstruction,
+                              @Value("${rag.index.min-rows:10000}") long minRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.corpusStatistics = corpusStatistics;
+        this.collections = collections;
+        this.quantization = VectorQuantization.fromProperty(quantization);
+        this.method = method.trim().toLowerCase(Locale.ROOT);
+        if (!VectorIndexSpec.IVFFLAT.equals(this.method) && !VectorIndexSpec.HNSW.equals(this.method)) {
+            throw new IllegalArgumentException("Unsupported vector index method: " + method + " (expected ivfflat or hnsw).");
+        }
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.minRows = Math.max(0, minRows);
+    }
+
+    static String indexName(String collection) {
+        return "idx_" + RagCollections.partition(collection) + "_embedding";
+    }
+
+    /**
+     * Parameters of the index queries of {@code collection} currently run against, or {@code null} when
+     * there is none (or it was not built by this manager).
+     */
+    public VectorIndexSpec currentSpec(String collection) {
+        return currentSpecs.get(collection);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        for (String collection : collections.names()) {
+            readCurrentSpec(collection);
+            requestReconcile(collection);
+        }
+    }
+
+    /**
+     * Called after a load activates a new generation of {@code collection}. Returns immediately; any
+     * rebuild runs in the background.
+     */
+    public void afterLoad(String collection) {
+        requestReconcile(collection);
+    }
+
+    private void requestReconcile(String collection) {
+        reconcileRequested.add(collection);
+        startReconciling();
+    }
+
+    private void startReconciling() {
+        if (reconciling.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("vector-index-manager").start(this::runReconcile);
+        }
+    }
+
+    private void runReconcile() {
+        try {
+            String collection;
+            while ((collection = nextRequested()) != null) {
+                try {
+                    reconcile(collection);
+                } catch (RuntimeException e) {
+                    log.warn("Vector index rebuild for collection {} failed, keeping the current index: {}", collection, e.getMessage(), e);
+                }
+            }
+        } finally {
+            reconciling.set(false);
+        }
+        // A load that finished between the last check and the reset above saw a reconcile in progress.
+        if (!reconcileRequested.isEmpty()) {
+            startReconciling();
+        }
+    }
+
+    private String nextRequested() {
+        for (String collection : reconcileRequested) {
+            if (reconcileRequested.remove(collection)) {
+                return collection;
+            }
+        }
+        return null;
+    }
+
+    private void reconcile(String collection) {
+        long rows = corpusStatistics.current(collection).getChunkCount();
+        boolean present = readCurrentSpec(collection);
+        if (rows < minRows) {
+            return;
+        }
+        VectorIndexSpec desired = desiredSpec(rows);
+        if (present && satisfies(currentSpecs.get(collection), desired)) {
+            return;
+        }
+
+        String indexName = indexName(collection);
+        String nextIndexName = indexName + "_next";
+        long started = System.nanoTime();
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + nextIndexName);
+        jdbcTemplate.execute(desired.createSql(nextIndexName, RagCollections.partition(collection), true));
+        jdbcTemplate.execute("COMMENT ON INDEX " + nextIndexName + " IS '" + desired.describe() + "'");
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+        jdbcTemplate.execute("ALTER INDEX " + nextIndexName + " RENAME TO " + indexName);
+        currentSpecs.put(collection, desired);
+        log.info("Built vector index {} for {} rows of collection {} in {} ms.",
+                desired.describe(), rows, collection, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    VectorIndexSpec desiredSpec(long rows) {
+        if (VectorIndexSpec.HNSW.equals(method)) {
+            return VectorIndexSpec.hnsw(quantization, m, efConstruction);
+        }
+        // pgvector's guidance for ivfflat: rows / 1000 lists up to 1M rows, sqrt(rows) beyond.
+        long lists = rows <= 1_000_000 ? rows / 1000 : (long) Math.sqrt(rows);
+        return VectorIndexSpec.ivfflat(quantization, (int) Math.max(1, lists));
+    }
+
+    private static boolean satisfies(VectorIndexSpec current, VectorIndexSpec desired) {
+        if (current == null || !current.method().equals(desired.method()) || current.quantization() != desired.quantization()) {
+            return false;
+        }
+        if (desired.isIvfflat()) {
+            return current.lists() * 2L >= desired.lists() && current.lists() <= desired.lists() * 2L;
+        }
+        return current.m() == desired.m() && current.efConstruction() == desired.efConstruction();
+    }
+
+    private boolean readCurrentSpec(String collection) {
+        Map<String, Object> index = jdbcTemplate.queryForMap(SELECT_INDEX_SQL, indexName(collection));
+        boolean present = Boolean.TRUE.equals(index.get("present"));
+        VectorIndexSpec spec = present ? VectorIndexSpec.parse((String) index.get("spec")) : null;
+        if (spec != null) {
+            currentSpecs.put(collection, spec);
+        } else {
+            currentSpecs.remove(collection);
+        }
+        return present;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.openai.services;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Build parameters of the vector index on {@code rag_chunks}. {@link #describe()} is stored as the
+ * index comment, so the manager can tell what an existing index was built with.
+ */
+public record VectorIndexSpec(String method, VectorQuantization quantization, int lists, int m, int efConstruction) {
+
+    public static final String IVFFLAT = "ivfflat";
+    public static final String HNSW = "hnsw";
+
+    public static VectorIndexSpec ivfflat(VectorQuantization quantization, int lists) {
+        return new VectorIndexSpec(IVFFLAT, quantization, Math.max(1, lists), 0, 0);
+    }
+
+    public static VectorIndexSpec hnsw(VectorQuantization quantization, int m, int efConstruction) {
+        return new VectorIndexSpec(HNSW, quantization, 0, m, efConstruction);
+    }
+
+    public boolean isIvfflat() {
+        return IVFFLAT.equals(method);
+    }
+
+    public String createSql(String indexName, String table, boolean concurrently) {
+        String with = isIvfflat()
+                ? "lists = " + lists
+                : "m = " + m + ", ef_construction = " + efConstruction;
+        return "CREATE INDEX " + (concurrently ? "CONCURRENTLY " : "") + indexName + " ON " + table
+                + " USING " + method + " (" + quantization.indexKey() + ") WITH (" + with + ")";
+    }
+
+    public String describe() {
+        return isIvfflat()
+                ? "method=ivfflat;quantization=" + quantization.name().toLowerCase(Locale.ROOT) + ";lists=" + lists
+                : "method=hnsw;quantization=" + quantization.name().toLowerCase(Locale.ROOT) + ";m=" + m + ";ef_construction=" + efConstruction;
+    }
+
+    /**
+     * Reads back a {@link #describe()} string; returns {@code null} for anything else, such as an
+     * index created by hand or by an older schema.
+     */
+    public static VectorIndexSpec parse(String description) {
+        if (description == null || description.isBlank()) {
+            return null;
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String part : description.split(";")) {
+            int separator = part.indexOf('=');
+            if (separator > 0) {
+                values.put(part.substring(0, separator), part.substring(separator + 1));
+            }
+        }
+        try {
+            VectorQuantization quantization = VectorQuantization.fromProperty(values.getOrDefault("quantization", ""));
+            if (IVFFLAT.equals(values.get("method"))) {
+                return ivfflat(quantization, Integer.parseInt(values.get("lists")));
+            }
+            if (HNSW.equals(values.get("method"))) {
+                return hnsw(quantization, Integer.parseInt(values.get("m")), Integer.parseInt(values.get("ef_construction")));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.openai.services;
+
+import java.util.Locale;
+
+/**
+ * How the first-pass top-k search compares vectors. {@code HALFVEC} and {@code BINARY} search an
+ * expression index over a 16-bit or 1-bit copy of {@code embedding} and then rerank a few times
+ * {@code topK} candidates against the full-precision column, so only the smaller index has to stay
+ * in memory.
+ */
+public enum VectorQuantization {
+
+    NONE("%s <=> ?", "embedding vector_cosine_ops"),
+    HALFVEC("(%s)::halfvec(1536) <=> (?)::halfvec(1536)", "((embedding::halfvec(1536))) halfvec_cosine_ops"),
+    BINARY("binary_quantize(%s)::bit(1536) <~> binary_quantize(?)", "((binary_quantize(embedding)::bit(1536))) bit_hamming_ops");
+
+    private final String orderTemplate;
+    private final String indexKey;
+
+    VectorQuantization(String orderTemplate, String indexKey) {
+        this.orderTemplate = orderTemplate;
+        this.indexKey = indexKey;
+    }
+
+    public static VectorQuantization fromProperty(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported vector quantization: " + value + " (expected none, halfvec or binary).", e);
+        }
+    }
+
+    /**
+     * {@code ORDER BY} expression comparing {@code column} with one vector parameter.
+     */
+    public String orderBy(String column) {
+        return orderTemplate.formatted(column);
+    }
+
+    /**
+     * Key column or expression plus operator class for an index that serves {@link #orderBy}.
+     */
+    public String indexKey() {
+        return indexKey;
+    }
+}
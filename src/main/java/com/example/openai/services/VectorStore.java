@@ -0,0 +1,26 @@
+package com.example.openai.services;
+
+import java.util.List;
+
+/**
+ * Nearest-neighbour retrieval over the active generation of one collection of {@code rag_chunks}.
+ */
+public interface VectorStore {
+
+    /**
+     * Returns up to {@code topK} chunks of {@code collection} closest to {@code queryEmbedding} by cosine
+     * distance, closest first. Returned chunks carry source, chunk index and text, but no embedding.
+     */
+    List<DocumentChunk> search(String collection, float[] queryEmbedding, int topK, SearchProfile profile);
+
+    default List<DocumentChunk> search(String collection, float[] queryEmbedding, int topK) {
+        return search(collection, queryEmbedding, topK, SearchProfile.BALANCED);
+    }
+
+    /**
+     * Called by {@link RagService} right after a load has switched the active generation of
+     * {@code collection}, while the rows it retired are still in the table.
+     */
+    default void generationActivated(String collection, long previousGeneration, long generation) {
+    }
+}
@@ -7,13 +7,119 @@ CREATE TABLE IF NOT EXISTS documents (
 );
 
 CREATE TABLE IF NOT EXISTS rag_chunks (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGSERIAL,
+    collection TEXT NOT NULL DEFAULT 'default',
     source TEXT NOT NULL,
     chunk_index INTEGER NOT NULL,
     content TEXT NOT NULL,
-    embedding vector(1536) NOT NULL
+    embedding vector(1536) NOT NULL,
+    PRIMARY KEY (collection, id)
+) PARTITION BY LIST (collection);
+
+-- Tables created before collections existed are converted to a partitioned table by RagCollections at startup.
+ALTER TABLE rag_chunks ADD COLUMN IF NOT EXISTS collection TEXT NOT NULL DEFAULT 'default';
+
+ALTER TABLE rag_chunks ADD COLUMN IF NOT EXISTS source_path TEXT;
+
+CREATE INDEX IF NOT EXISTS idx_rag_chunks_source_path
+    ON rag_chunks (source_path);
+
+ALTER TABLE rag_chunks ADD COLUMN IF NOT EXISTS generation BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE rag_chunks ADD COLUMN IF NOT EXISTS retired_generation BIGINT;
+
+CREATE INDEX IF NOT EXISTS idx_rag_chunks_generation
+    ON rag_chunks (generation);
+
+CREATE INDEX IF NOT EXISTS idx_rag_chunks_retired_generation
+    ON rag_chunks (retired_generation)
+    WHERE retired_generation IS NOT NULL;
+
+CREATE TABLE IF NOT EXISTS rag_corpus_state (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    active_generation BIGINT NOT NULL,
+    activated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+INSERT INTO rag_corpus_state (id, active_generation)
+VALUES (1, 0)
+ON CONFLICT (id) DO NOTHING;
+
+CREATE TABLE IF NOT EXISTS rag_collections (
+    name TEXT PRIMARY KEY,
+    active_generation BIGINT NOT NULL DEFAULT 0,
+    activated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
 );
 
-CREATE INDEX IF NOT EXISTS idx_rag_chunks_embedding
-    ON rag_chunks USING ivfflat (embedding vector_cosine_ops)
-    WITH (lists = 100);
\ No newline at end of file
+-- Ingestion job whose rows are staged in generation active_generation + 1; only it may resume them.
+ALTER TABLE rag_collections ADD COLUMN IF NOT EXISTS staging_job TEXT;
+
+INSERT INTO rag_collections (name, active_generation, activated_at)
+SELECT 'default', active_generation, activated_at FROM rag_corpus_state WHERE id = 1
+ON CONFLICT (name) DO NOTHING;
+
+CREATE TABLE IF NOT EXISTS rag_sources (
+    collection TEXT NOT NULL DEFAULT 'default',
+    source_path TEXT NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    last_modified_ms BIGINT NOT NULL,
+    content_hash TEXT NOT NULL,
+    chunk_count INTEGER NOT NULL,
+    loaded_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (collection, source_path)
+);
+
+ALTER TABLE rag_sources ADD COLUMN IF NOT EXISTS collection TEXT NOT NULL DEFAULT 'default';
+
+CREATE TABLE IF NOT EXISTS rag_source_stats (
+    collection TEXT NOT NULL DEFAULT 'default',
+    source_path TEXT NOT NULL,
+    source TEXT NOT NULL,
+    chunk_count INTEGER NOT NULL,
+    char_count BIGINT NOT NULL,
+    first_chunk_id BIGINT NOT NULL,
+    last_chunk_id BIGINT NOT NULL,
+    generation BIGINT NOT NULL,
+    PRIMARY KEY (collection, source_path)
+);
+
+ALTER TABLE rag_source_stats ADD COLUMN IF NOT EXISTS collection TEXT NOT NULL DEFAULT 'default';
+
+CREATE TABLE IF NOT EXISTS embedding_cache (
+    model TEXT NOT NULL,
+    text_hash TEXT NOT NULL,
+    embedding vector NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (model, text_hash)
+);
+
+CREATE TABLE IF NOT EXISTS rag_ingest_jobs (
+    id TEXT PRIMARY KEY,
+    collection TEXT NOT NULL DEFAULT 'default',
+    path TEXT NOT NULL,
+    status TEXT NOT NULL,
+    generation BIGINT,
+    resumable BOOLEAN NOT NULL DEFAULT false,
+    files_seen INTEGER NOT NULL DEFAULT 0,
+    chunks_embedded BIGINT NOT NULL DEFAULT 0,
+    rows_written BIGINT NOT NULL DEFAULT 0,
+    error TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    started_at TIMESTAMPTZ,
+    finished_at TIMESTAMPTZ
+);
+
+ALTER TABLE rag_ingest_jobs ADD COLUMN IF NOT EXISTS collection TEXT NOT NULL DEFAULT 'default';
+
+ALTER TABLE rag_ingest_jobs ADD COLUMN IF NOT EXISTS checkpointed_sources INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS rag_ingest_checkpoints (
+    job_id TEXT NOT NULL,
+    source_path TEXT NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    last_modified_ms BIGINT NOT NULL,
+    content_hash TEXT NOT NULL,
+    chunk_count INTEGER NOT NULL,
+    PRIMARY KEY (job_id, source_path)
+);
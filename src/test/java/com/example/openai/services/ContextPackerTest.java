@@ -0,0 +1,126 @@
+package com.example.openai.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextPackerTest {
+
+    private static final String FIRST = "Invoices are due thirty days after the delivery date unless the contract says otherwise.";
+    private static final String SECOND = "unless the contract says otherwise. Late payments accrue interest at two percent per month.";
+
+    private final ContextPacker packer = new ContextPacker(3000, 0.8);
+
+    @Test
+    void mergesAdjacentChunksAndDropsTheOverlap() {
+        ContextPacker.PackedContext packed = packer.pack(List.of(chunk("terms.txt", 0, FIRST), chunk("terms.txt", 1, SECOND)));
+
+        assertTrue(packed.text().startsWith("Source: terms.txt | Chunks: 0-1\n"), packed.text());
+        assertEquals(1, occurrences(packed.text(), "unless the contract says otherwise."));
+        assertTrue(packed.text().contains("otherwise. Late payments"), packed.text());
+        assertEquals(2, packed.chunks());
+        assertTrue(packed.savedTokens() > 0);
+    }
+
+    @Test
+    void mergesChunksRetrievedOutOfOrder() {
+        ContextPacker.PackedContext packed = packer.pack(List.of(chunk("terms.txt", 1, SECOND), chunk("terms.txt", 0, FIRST)));
+
+        assertTrue(packed.text().startsWith("Source: terms.txt | Chunks: 0-1\n" + FIRST), packed.text());
+    }
+
+    @Test
+    void keepsGapsAndOtherSourcesApartInRankOrder() {
+        ContextPacker.PackedContext packed = packer.pack(List.of(
+                chunk("b.txt", 0, "Shipping is free for orders above fifty euros within the European Union."),
+                chunk("a.txt", 4, "Refunds are issued to the original payment method within fourteen days."),
+                chunk("a.txt", 2, "Support is available on weekdays between nine in the morning and five.")));
+
+        int shipping = packed.text().indexOf("Source: b.txt | Chunk: 0\n");
+        int support = packed.text().indexOf("Source: a.txt | Chunk: 2\n");
+        int refunds = packed.text().indexOf("Source: a.txt | Chunk: 4\n");
+        assertTrue(shipping == 0 && shipping < refunds && refunds < support, packed.text());
+        assertEquals(3, packed.chunks());
+    }
+
+    @Test
+    void keepsSameNamedFilesInDifferentFoldersApart() {
+        ContextPacker.PackedContext packed = packer.pack(List.of(
+                new DocumentChunk("/docs/billing/README.md", "README.md", 0, FIRST, null),
+                new DocumentChunk("/docs/shipping/README.md", "README.md", 1, SECOND, null)));
+
+        assertTrue(packed.text().contains("Source: README.md | Chunk: 0\n" + FIRST + "\n\n"), packed.text());
+        assertTrue(packed.text().contains("Source: README.md | Chunk: 1\n" + SECOND + "\n\n"), packed.text());
+        assertFalse(packed.text().contains("Chunks: 0-1"), packed.text());
+        assertEquals(2, packed.chunks());
+    }
+
+    @Test
+    void joinsAdjacentChunksWithoutOverlapWithASpace() {
+        ContextPacker.PackedContext packed = packer.pack(List.of(
+                chunk("a.txt", 0, "The warehouse opens at six."),
+                chunk("a.txt", 1, "Deliveries start at seven.")));
+
+        assertTrue(packed.text().contains("The warehouse opens at six. Deliveries start at seven."), packed.text());
+    }
+
+    @Test
+    void dropsNearDuplicatePassages() {
+        String text = "Passwords must be rotated every ninety days and may not repeat any of the last five passwords.";
+        ContextPacker.PackedContext packed = packer.pack(List.of(chunk("policy-v1.txt", 0, text), chunk("policy-v2.txt", 3, text)));
+
+        assertTrue(packed.text().contains("policy-v1.txt"));
+        assertFalse(packed.text().contains("policy-v2.txt"));
+        assertEquals(1, packed.chunks());
+    }
+
+    @Test
+    void staysWithinTheTokenBudget() {
+        List<DocumentChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            chunks.add(chunk("doc-" + i + ".txt", 0, distinctText(i)));
+        }
+        ContextPacker smallPacker = new ContextPacker(300, 0.8);
+
+        ContextPacker.PackedContext packed = smallPacker.pack(chunks);
+
+        assertTrue(packed.tokens() <= 300, "used " + packed.tokens() + " tokens");
+        assertTrue(packed.tokens() > 0);
+        assertTrue(packed.chunks() < chunks.size());
+        assertTrue(packed.text().startsWith("Source: doc-0.txt"), packed.text());
+        assertTrue(packed.text().endsWith("\n\n"));
+        assertTrue(packed.savedTokens() > 0);
+    }
+
+    @Test
+    void overlapIsTheLongestSuffixThatStartsTheNextChunk() {
+        assertEquals("unless the contract says otherwise.".length(), ContextPacker.overlap(FIRST, SECOND));
+        assertEquals(0, ContextPacker.overlap("short tail", "short tail and more"));
+        assertEquals(0, ContextPacker.overlap(FIRST, "Nothing in common with the previous chunk at all."));
+    }
+
+    private static DocumentChunk chunk(String source, int index, String text) {
+        return new DocumentChunk("/docs/" + source, source, index, text, null);
+    }
+
+    private static String distinctText(int seed) {
+        StringBuilder text = new StringBuilder();
+        for (int word = 0; word < 120; word++) {
+            text.append("term").append(seed).append('x').append(word).append(' ');
+        }
+        return text.toString().trim();
+    }
+
+    private static int occurrences(String text, String part) {
+        int count = 0;
+        for (int at = text.indexOf(part); at >= 0; at = text.indexOf(part, at + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
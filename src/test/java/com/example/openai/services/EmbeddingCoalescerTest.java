@@ -0,0 +1,77 @@
+package com.example.openai.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmbeddingCoalescerTest {
+
+    private EmbeddingCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    void failsTheBatchWhenTheModelThrowsAnError() {
+        coalescer = coalescer(new FailingEmbeddingModel(new AssertionError("model crashed")));
+
+        CompletableFuture<float[]> first = coalescer.submit("first");
+        CompletableFuture<float[]> second = coalescer.submit("second");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, failure.getCause());
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failsRequestsQueuedAfterClose() {
+        coalescer = coalescer(new FailingEmbeddingModel(new IllegalStateException("unused")));
+        coalescer.close();
+
+        assertThrows(IllegalStateException.class, () -> coalescer.submit("late"));
+    }
+
+    private static EmbeddingCoalescer coalescer(EmbeddingModel embeddingModel) {
+        UpstreamGovernor governor = new UpstreamGovernor(new MockEnvironment(), 0, 0, 8, 1, 64, 1, 1, 1, 0);
+        EmbeddingCache embeddingCache = new EmbeddingCache(embeddingModel, null, governor, "test", 0, false);
+        return new EmbeddingCoalescer(embeddingCache, new JdbcTemplate(), 5, 64, 1, 100);
+    }
+
+    private record FailingEmbeddingModel(Throwable failure) implements EmbeddingModel {
+
+        @Override
+        public List<float[]> embed(List<String> texts) {
+            if (failure instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) failure;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.openai.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswGraphTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int TOP_K = 10;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void searchFindsMostOfTheExactNearestNeighbours() {
+        Random random = new Random(1);
+        float[][] vectors = randomVectors(random, 2000);
+        HnswGraph graph = graphOf(vectors);
+
+        int hits = 0;
+        int queries = 50;
+        for (int query = 0; query < queries; query++) {
+            float[] vector = randomVector(random);
+            Set<Integer> expected = exactNearest(vectors, vector, TOP_K);
+            for (DocumentChunk chunk : graph.search(vector, TOP_K, 64)) {
+                if (expected.contains(chunk.chunkIndex())) {
+                    hits++;
+                }
+            }
+        }
+        double recall = hits / (double) (queries * TOP_K);
+        assertTrue(recall >= 0.9, "recall@" + TOP_K + " was " + recall);
+    }
+
+    @Test
+    void pendingChunksAreHiddenUntilPublished() {
+        HnswGraph graph = new HnswGraph(DIMENSIONS, 16, 100, 16);
+        float[] vector = randomVector(new Random(2));
+        graph.add(1, "/docs/a.txt", "a.txt", 0, "first", vector);
+
+        assertEquals(List.of(), graph.search(vector, 1, 16));
+
+        graph.publish(List.of(), 3);
+        DocumentChunk found = graph.search(vector, 1, 16).get(0);
+        assertEquals("first", found.text());
+        assertEquals("/docs/a.txt", found.sourcePath());
+        assertEquals(3, graph.generation());
+        assertEquals(1, graph.liveCount());
+    }
+
+    @Test
+    void removedChunksAreNoLongerReturned() {
+        Random random = new Random(3);
+        float[][] vectors = randomVectors(random, 200);
+        HnswGraph graph = graphOf(vectors);
+
+        graph.publish(List.of(7L), 2);
+
+        assertEquals(vectors.length - 1, graph.liveCount());
+        assertEquals(1, graph.deletedCount());
+        for (DocumentChunk chunk : graph.search(vectors[7], TOP_K, 64)) {
+            assertTrue(chunk.chunkIndex() != 7, "tombstoned chunk was returned");
+        }
+    }
+
+    @Test
+    void rejectsEmbeddingsOfTheWrongSize() {
+        HnswGraph graph = new HnswGraph(DIMENSIONS, 16, 100, 16);
+
+        assertThrows(IllegalArgumentException.class, () -> graph.add(1, "/docs/a.txt", "a.txt", 0, "text", new float[DIMENSIONS + 1]));
+    }
+
+    @Test
+    void savedGraphLoadsWithTheSameResults() throws IOException {
+        Random random = new Random(4);
+        float[][] vectors = randomVectors(random, 500);
+        HnswGraph graph = graphOf(vectors);
+        graph.publish(List.of(11L, 12L), 5);
+        Path file = tempDir.resolve("graph.hnsw");
+
+        graph.save(file);
+        HnswGraph loaded = HnswGraph.load(file, DIMENSIONS, 16, 100);
+
+        assertEquals(5, loaded.generation());
+        assertEquals(graph.liveCount(), loaded.liveCount());
+        assertEquals(graph.deletedCount(), loaded.deletedCount());
+        for (int query = 0; query < 20; query++) {
+            float[] vector = randomVector(random);
+            assertEquals(describe(graph.search(vector, TOP_K, 64)), describe(loaded.search(vector, TOP_K, 64)));
+        }
+    }
+
+    @Test
+    void loadIgnoresFilesBuiltWithOtherParameters() throws IOException {
+        HnswGraph graph = graphOf(randomVectors(new Random(5), 50));
+        Path file = tempDir.resolve("graph.hnsw");
+        graph.save(file);
+
+        assertNull(HnswGraph.load(file, DIMENSIONS + 1, 16, 100));
+        assertNull(HnswGraph.load(tempDir.resolve("missing.hnsw"), DIMENSIONS, 16, 100));
+    }
+
+    @Test
+    void refusesToSaveWithPendingChunks() {
+        HnswGraph graph = new HnswGraph(DIMENSIONS, 16, 100, 16);
+        graph.add(1, "/docs/a.txt", "a.txt", 0, "text", randomVector(new Random(6)));
+
+        assertThrows(IllegalStateException.class, () -> graph.save(tempDir.resolve("graph.hnsw")));
+    }
+
+    private static HnswGraph graphOf(float[][] vectors) {
+        HnswGraph graph = new HnswGraph(DIMENSIONS, 16, 100, 16);
+        for (int i = 0; i < vectors.length; i++) {
+            // Rows loaded before source paths were tracked have none.
+            String sourcePath = i % 10 == 0 ? null : "/docs/source-" + i;
+            graph.add(i, sourcePath, "source-" + i, i, "chunk-" + i, vectors[i]);
+        }
+        graph.publish(List.of(), 1);
+        return graph;
+    }
+
+    private static Set<Integer> exactNearest(float[][] vectors, float[] query, int k) {
+        double[] similarity = new double[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            similarity[i] = cosine(vectors[i], query);
+        }
+        return new HashSet<>(IntStream.range(0, vectors.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> similarity[i]).reversed())
+                .limit(k)
+                .toList());
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / Math.sqrt(normA * normB);
+    }
+
+    private static List<String> describe(List<DocumentChunk> chunks) {
+        return chunks.stream().map(chunk -> chunk.sourcePath() + " " + chunk.source() + "#" + chunk.chunkIndex() + ":" + chunk.text()).toList();
+    }
+
+    private static float[][] randomVectors(Random random, int count) {
+        float[][] vectors = new float[count][];
+        Arrays.setAll(vectors, i -> randomVector(random));
+        return vectors;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.openai.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionJobStoreTest {
+
+    private static final long ACTIVE_GENERATION = 4;
+
+    @Test
+    void resumesItsOwnStagedGenerationWithAllCheckpoints() {
+        IngestionJobStore.ResumeState state = new IngestionJobStore.ResumeState(true, ACTIVE_GENERATION + 1, true, 3);
+
+        assertTrue(state.resumes(ACTIVE_GENERATION, 3));
+    }
+
+    @Test
+    void startsOverWhenTheJobIsNotResumable() {
+        IngestionJobStore.ResumeState state = new IngestionJobStore.ResumeState(false, ACTIVE_GENERATION + 1, true, 3);
+
+        assertFalse(state.resumes(ACTIVE_GENERATION, 3));
+        assertFalse(IngestionJobStore.ResumeState.NONE.resumes(ACTIVE_GENERATION, 0));
+    }
+
+    @Test
+    void olderJobDoesNotResumeAGenerationANewerJobStarted() {
+        // A stopped, a newer job B then staged the same generation number, and A is retried.
+        IngestionJobStore.ResumeState olderJob = new IngestionJobStore.ResumeState(true, ACTIVE_GENERATION + 1, false, 3);
+
+        assertFalse(olderJob.resumes(ACTIVE_GENERATION, 3));
+    }
+
+    @Test
+    void doesNotResumeOnceAnotherGenerationWasActivated() {
+        IngestionJobStore.ResumeState activated = new IngestionJobStore.ResumeState(true, ACTIVE_GENERATION, true, 3);
+        IngestionJobStore.ResumeState superseded = new IngestionJobStore.ResumeState(true, ACTIVE_GENERATION - 1, true, 3);
+
+        assertFalse(activated.resumes(ACTIVE_GENERATION, 3));
+        assertFalse(superseded.resumes(ACTIVE_GENERATION, 3));
+    }
+
+    @Test
+    void doesNotResumeWhenCheckpointsAreMissing() {
+        IngestionJobStore.ResumeState state = new IngestionJobStore.ResumeState(true, ACTIVE_GENERATION + 1, true, 3);
+
+        assertFalse(state.resumes(ACTIVE_GENERATION, 2));
+        assertTrue(state.resumes(ACTIVE_GENERATION, 4));
+    }
+
+    @Test
+    void startGenerationClearsOtherJobsOfTheCollectionInOneTransaction() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+        RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+        IngestionJobStore store = new IngestionJobStore(jdbcTemplate, new TransactionTemplate(transactionManager));
+
+        IngestionJob stale = job("stale", "docs");
+        IngestionJob otherCollection = job("other", "manuals");
+        IngestionJob current = job("current", "docs");
+        store.remember(stale);
+        store.remember(otherCollection);
+        store.remember(current);
+
+        store.startGeneration(current);
+
+        assertFalse(stale.resumable());
+        assertTrue(otherCollection.resumable());
+        assertTrue(current.resumable());
+        assertEquals(1, transactionManager.commits);
+        assertEquals(3, jdbcTemplate.statements.size());
+        assertTrue(jdbcTemplate.statements.get(0).startsWith("DELETE FROM rag_ingest_checkpoints"), jdbcTemplate.statements.get(0));
+        assertTrue(jdbcTemplate.statements.get(1).startsWith("UPDATE rag_ingest_jobs SET resumable = false"), jdbcTemplate.statements.get(1));
+        assertTrue(jdbcTemplate.statements.get(2).startsWith("UPDATE rag_collections SET staging_job"), jdbcTemplate.statements.get(2));
+        assertEquals(List.of("current", "docs"), jdbcTemplate.arguments.get(2));
+    }
+
+    @Test
+    void findReturnsRememberedJobsWithoutQuerying() {
+        RecordingJdbcTemplate jdbcTemplate = new RecordingJdbcTemplate();
+        IngestionJobStore store = new IngestionJobStore(jdbcTemplate, new TransactionTemplate(new RecordingTransactionManager()));
+        IngestionJob job = job("job-1", "docs");
+
+        store.remember(job);
+
+        assertSame(job, store.find("job-1"));
+        assertTrue(jdbcTemplate.statements.isEmpty());
+    }
+
+    private static IngestionJob job(String id, String collection) {
+        IngestionJob job = new IngestionJob(id, collection, "/data/" + collection, Instant.EPOCH);
+        job.resumable(true);
+        return job;
+    }
+
+    private static final class RecordingJdbcTemplate extends JdbcTemplate {
+
+        private final List<String> statements = new ArrayList<>();
+        private final List<List<Object>> arguments = new ArrayList<>();
+
+        @Override
+        public int update(String sql, Object... args) {
+            statements.add(sql.strip());
+            arguments.add(List.of(args));
+            return 1;
+        }
+    }
+
+    private static final class RecordingTransactionManager implements PlatformTransactionManager {
+
+        private int commits;
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
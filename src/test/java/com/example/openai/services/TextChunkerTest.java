@@ -0,0 +1,229 @@
+package com.example.openai.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextChunkerTest {
+
+    private final TextChunker chunker = new TextChunker();
+
+    @Test
+    void blankTextHasNoChunks() {
+        assertEquals(List.of(), chunker.chunkText(""));
+        assertEquals(List.of(), chunker.chunkText(" \n\t\n "));
+    }
+
+    @Test
+    void shortTextMatchesTheOldChunker() {
+        String text = "  First line.\n\nSecond   paragraph\twith tabs\r\nand a trailing newline.\n";
+
+        assertEquals(regexChunkText(text), chunker.chunkText(text));
+        assertEquals(List.of("First line. Second paragraph with tabs and a trailing newline."), chunker.chunkText(text));
+    }
+
+    @Test
+    void textWithoutSpacesMatchesTheOldChunker() {
+        String text = "x".repeat(5000);
+
+        assertEquals(regexChunkText(text), chunker.chunkText(text));
+    }
+
+    @Test
+    void chunksCoverTheSameTextAsTheOldChunker() {
+        String text = generatedText(50_000, 7);
+        String normalized = text.replaceAll("\\s+", " ").trim();
+
+        List<String> chunks = chunker.chunkText(text);
+
+        assertEquals(normalized, rejoin(normalized, regexChunkText(text)));
+        assertEquals(normalized, rejoin(normalized, chunks));
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            assertTrue(chunk.length() <= TextChunker.CHUNK_SIZE, "chunk " + i + " has " + chunk.length() + " chars");
+            if (i < chunks.size() - 1) {
+                assertTrue(chunk.length() >= TextChunker.CHUNK_SIZE - TextChunker.BOUNDARY_TOLERANCE, "chunk " + i + " is too short");
+            }
+            assertFalse(chunk.startsWith(" ") || chunk.endsWith(" "), "chunk " + i + " has untrimmed spaces");
+        }
+    }
+
+    @Test
+    void chunksEndOnWordsAndOverlapByWholeWords() {
+        String text = generatedText(20_000, 11);
+        String normalized = text.replaceAll("\\s+", " ").trim();
+
+        List<String> chunks = chunker.chunkText(text);
+
+        int previousStart = 0;
+        int previousEnd = chunks.get(0).length();
+        for (int i = 1; i < chunks.size(); i++) {
+            int start = normalized.indexOf(chunks.get(i), previousStart + 1);
+            assertTrue(start > 0 && start <= previousEnd, "chunk " + i + " does not overlap the previous one");
+            assertTrue(previousEnd - start <= TextChunker.CHUNK_OVERLAP, "chunk " + i + " overlaps by " + (previousEnd - start));
+            assertEquals(' ', normalized.charAt(start - 1), "chunk " + i + " starts inside a word");
+            assertEquals(' ', normalized.charAt(previousEnd), "chunk " + (i - 1) + " ends inside a word");
+            previousStart = start;
+            previousEnd = start + chunks.get(i).length();
+        }
+        assertEquals(normalized.length(), previousEnd);
+    }
+
+    @Test
+    void prefersParagraphBreaksOverSentenceEnds() {
+        String first = words(1000) + ".\n\n" + words(40) + ". " + words(60);
+        String text = first + " " + words(600);
+
+        String chunk = chunker.chunkText(text).get(0);
+
+        assertTrue(chunk.endsWith(words(1000).substring(990) + "."), chunk.substring(chunk.length() - 20));
+    }
+
+    @Test
+    void prefersSentenceEndsOverSpaces() {
+        String text = words(1050) + ". " + words(1000);
+
+        String chunk = chunker.chunkText(text).get(0);
+
+        assertTrue(chunk.endsWith("."), chunk.substring(chunk.length() - 20));
+        assertEquals(1051, chunk.length());
+    }
+
+    @Test
+    void neverSplitsASurrogatePair() {
+        // Odd offset so that the window fills up with the high half of a pair last.
+        String text = "a" + "😀".repeat(3000);
+
+        List<String> chunks = chunker.chunkText(text);
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)), "chunk ends with a high surrogate");
+            assertFalse(Character.isLowSurrogate(chunk.charAt(0)), "chunk starts with a low surrogate");
+        }
+    }
+
+    @Test
+    void overlapWithoutSpacesNeverStartsInsideASurrogatePair() {
+        // Three chars per repeat, so with a 200-char overlap the next chunk would start on the low half of a pair.
+        String text = "a😀".repeat(3000);
+
+        List<String> chunks = chunker.chunkText(text);
+
+        assertTrue(chunks.size() > 1);
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)), "chunk " + i + " ends with a high surrogate");
+            assertFalse(Character.isLowSurrogate(chunk.charAt(0)), "chunk " + i + " starts with a low surrogate");
+        }
+    }
+
+    @Test
+    void readerGivesTheSameChunksAsAString() {
+        String text = generatedText(30_000, 3);
+
+        List<String> fromReader = new ArrayList<>();
+        Iterator<String> chunks = chunker.chunks(new TrickleReader(text));
+        chunks.forEachRemaining(fromReader::add);
+
+        assertEquals(chunker.chunkText(text), fromReader);
+    }
+
+    /**
+     * Maps each chunk back onto {@code normalized} and joins them without their overlap.
+     */
+    private static String rejoin(String normalized, List<String> chunks) {
+        StringBuilder joined = new StringBuilder();
+        int from = 0;
+        for (String chunk : chunks) {
+            int start = normalized.indexOf(chunk, from);
+            assertTrue(start >= 0 && start <= joined.length(), "chunk is not a contiguous part of the text");
+            joined.append(normalized, joined.length(), start + chunk.length());
+            from = start + 1;
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Words separated by single spaces, no sentence ends, exactly {@code length} chars.
+     */
+    private static String words(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append(builder.length() % 7 == 6 ? ' ' : 'w');
+        }
+        builder.setCharAt(length - 1, 'w');
+        return builder.toString();
+    }
+
+    /**
+     * Words with sentence ends, line breaks, blank lines and runs of spaces, like extracted PDF text.
+     */
+    private static String generatedText(int chars, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder builder = new StringBuilder(chars + 32);
+        while (builder.length() < chars) {
+            int wordLength = 2 + random.nextInt(9);
+            for (int i = 0; i < wordLength; i++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+            int separator = random.nextInt(40);
+            builder.append(separator == 0 ? ".\n\n" : separator < 4 ? ". " : separator < 6 ? "  \n" : " ");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * {@code TextChunker.chunkText} before the streaming chunker.
+     */
+    private static List<String> regexChunkText(String text) {
+        String normalized = text.replaceAll("\\s+", " ").trim();
+        List<String> chunks = new ArrayList<>();
+        if (normalized.isBlank()) {
+            return chunks;
+        }
+
+        int start = 0;
+        while (start < normalized.length()) {
+            int end = Math.min(start + TextChunker.CHUNK_SIZE, normalized.length());
+            chunks.add(normalized.substring(start, end));
+            if (end == normalized.length()) {
+                break;
+            }
+            start = Math.max(0, end - TextChunker.CHUNK_OVERLAP);
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns a few characters per read, so chunks straddle many reads.
+     */
+    private static final class TrickleReader extends Reader {
+
+        private final StringReader text;
+
+        private TrickleReader(String text) {
+            this.text = new StringReader(text);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return text.read(buffer, offset, Math.min(length, 7));
+        }
+
+        @Override
+        public void close() {
+            text.close();
+        }
+    }
+}
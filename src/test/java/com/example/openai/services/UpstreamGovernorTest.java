@@ -0,0 +1,266 @@
+package com.example.openai.services;
+
+import com.example.openai.models.UpstreamModelStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class UpstreamGovernorTest {
+
+    private static final String MODEL = "test-model";
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void admitsInteractiveCallsBeforeBulkCalls() throws Exception {
+        UpstreamGovernor governor = governor(1, 1, 1);
+        List<String> admitted = new CopyOnWriteArrayList<>();
+        CountDownLatch finishFirst = new CountDownLatch(1);
+
+        Future<?> first = callers.submit(() -> governor.call(MODEL, UpstreamGovernor.Priority.BULK, 0, () -> {
+            admitted.add("first");
+            finishFirst.await();
+            return null;
+        }));
+        awaitStats(governor, stats -> stats.getInFlight() == 1);
+        Future<?> bulk = callers.submit(() -> governor.call(MODEL, UpstreamGovernor.Priority.BULK, 0, () -> admitted.add("bulk")));
+        awaitStats(governor, stats -> stats.getQueuedBulk() == 1);
+        Future<?> interactive = callers.submit(() -> governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> admitted.add("interactive")));
+        awaitStats(governor, stats -> stats.getQueuedInteractive() == 1);
+
+        finishFirst.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        bulk.get(5, TimeUnit.SECONDS);
+        interactive.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("first", "interactive", "bulk"), admitted);
+    }
+
+    @Test
+    void growsTheLimitOnlyWhileSaturated() {
+        UpstreamGovernor governor = governor(1, 4, 1);
+
+        for (int i = 0; i < 3; i++) {
+            governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> "ok");
+        }
+
+        assertEquals(2, stats(governor).getConcurrencyLimit());
+    }
+
+    @Test
+    void halvesTheLimitOncePerBurstOfThrottledCalls() throws Exception {
+        UpstreamGovernor governor = governor(8, 64, 1);
+        CountDownLatch bothAdmitted = new CountDownLatch(2);
+
+        List<Future<?>> burst = List.of(
+                callers.submit(() -> throttledAfter(governor, bothAdmitted)),
+                callers.submit(() -> throttledAfter(governor, bothAdmitted)));
+        for (Future<?> call : burst) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(4, stats(governor).getConcurrencyLimit());
+
+        throttledAfter(governor, new CountDownLatch(0));
+        assertEquals(2, stats(governor).getConcurrencyLimit());
+        assertEquals(3, stats(governor).getThrottled());
+    }
+
+    @Test
+    void retriesAfterTheDelayTheProviderAsksFor() throws UpstreamHttpException {
+        UpstreamGovernor governor = governor(8, 64, 2);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long started = System.nanoTime();
+        String result = governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new UpstreamHttpException(429, "1");
+            }
+            return "ok";
+        });
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertEquals("ok", result);
+        assertEquals(2, attempts.get());
+        assertTrue(elapsedMillis >= 1000, "retried after " + elapsedMillis + " ms");
+        assertEquals(1, stats(governor).getRetried());
+    }
+
+    @Test
+    void pausesTheLaneForRetryAfter() {
+        UpstreamGovernor governor = governor(8, 64, 1);
+        assertThrows(UpstreamHttpException.class, () -> governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> {
+            throw new UpstreamHttpException(429, "1");
+        }));
+        assertTrue(stats(governor).getPausedForMillis() > 0);
+
+        long started = System.nanoTime();
+        governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> "ok");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertTrue(elapsedMillis >= 900, "admitted after " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        UpstreamGovernor governor = governor(8, 64, 4);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(UpstreamHttpException.class, () -> governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> {
+            attempts.incrementAndGet();
+            throw new UpstreamHttpException(400, null);
+        }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(1, stats(governor).getFailed());
+        assertEquals(8, stats(governor).getConcurrencyLimit());
+    }
+
+    @Test
+    void releasesTheSlotWhenTheCallThrowsAnError() {
+        UpstreamGovernor governor = governor(1, 1, 4);
+
+        assertThrows(AssertionError.class, () -> governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> {
+            throw new AssertionError("boom");
+        }));
+
+        assertEquals(0, stats(governor).getInFlight());
+        assertEquals(1, stats(governor).getFailed());
+        assertEquals("ok", governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> "ok"));
+    }
+
+    @Test
+    void usesPerModelBudgets() {
+        MockEnvironment environment = new MockEnvironment().withProperty("upstream.models.slow-model.requests-per-minute", "60");
+        UpstreamGovernor governor = new UpstreamGovernor(environment, 600, 0, 8, 1, 64, 1, 1, 1, 0);
+
+        governor.call("slow-model", UpstreamGovernor.Priority.INTERACTIVE, 0, () -> "ok");
+        governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> "ok");
+
+        List<UpstreamModelStats> stats = governor.stats();
+        assertEquals(MODEL, stats.get(1).getModel());
+        assertEquals(60, stats.get(0).getRequestsPerMinute());
+        assertEquals(600, stats.get(1).getRequestsPerMinute());
+    }
+
+    @Test
+    void releasesTheStreamSlotWhenTheSubscriberCancels() {
+        UpstreamGovernor governor = governor(1, 1, 1);
+
+        Disposable subscription = governor.<String>stream(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, Flux::never).subscribe();
+        awaitStats(governor, stats -> stats.getInFlight() == 1);
+        subscription.dispose();
+
+        awaitStats(governor, stats -> stats.getInFlight() == 0);
+    }
+
+    @Test
+    void releasesAStreamSlotGrantedAfterTheSubscriberCancelled() throws Exception {
+        UpstreamGovernor governor = governor(1, 1, 1);
+        CountDownLatch finishBlocker = new CountDownLatch(1);
+        Future<?> blocker = callers.submit(() -> governor.call(MODEL, UpstreamGovernor.Priority.BULK, 0, () -> {
+            finishBlocker.await();
+            return null;
+        }));
+        awaitStats(governor, stats -> stats.getInFlight() == 1);
+
+        Disposable subscription = governor.<String>stream(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, Flux::never).subscribe();
+        awaitStats(governor, stats -> stats.getQueuedInteractive() == 1);
+        subscription.dispose();
+        finishBlocker.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+
+        awaitStats(governor, stats -> stats.getInFlight() == 0 && stats.getQueuedInteractive() == 0);
+        assertEquals("ok", governor.call(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> "ok"));
+    }
+
+    @Test
+    void throttledStreamHalvesTheLimitAndPausesTheLane() {
+        UpstreamGovernor governor = governor(8, 64, 1);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Retry-After", "1");
+        WebClientResponseException throttled = new WebClientResponseException(429, "Too Many Requests", headers, null, null);
+
+        governor.<String>stream(MODEL, UpstreamGovernor.Priority.INTERACTIVE, 0, () -> Flux.error(throttled))
+                .subscribe(value -> {
+                }, error -> {
+                });
+
+        awaitStats(governor, stats -> stats.getThrottled() == 1 && stats.getInFlight() == 0);
+        assertEquals(4, stats(governor).getConcurrencyLimit());
+        assertTrue(stats(governor).getPausedForMillis() > 0);
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndDates() {
+        assertEquals(2_000_000_000L, UpstreamGovernor.parseRetryAfterNanos("2"));
+        assertEquals(500_000_000L, UpstreamGovernor.parseRetryAfterNanos(" 0.5 "));
+        assertEquals(0, UpstreamGovernor.parseRetryAfterNanos(null));
+        assertEquals(0, UpstreamGovernor.parseRetryAfterNanos(""));
+        assertEquals(0, UpstreamGovernor.parseRetryAfterNanos("soon"));
+        assertEquals(0, UpstreamGovernor.parseRetryAfterNanos("-3"));
+
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        long future = UpstreamGovernor.parseRetryAfterNanos(DateTimeFormatter.RFC_1123_DATE_TIME.format(now.plusSeconds(30)));
+        assertTrue(future > TimeUnit.SECONDS.toNanos(28) && future <= TimeUnit.SECONDS.toNanos(30), "parsed " + future);
+        assertEquals(0, UpstreamGovernor.parseRetryAfterNanos(DateTimeFormatter.RFC_1123_DATE_TIME.format(now.minusMinutes(1))));
+    }
+
+    private static UpstreamGovernor governor(int initialConcurrency, int maxConcurrency, int maxAttempts) {
+        return new UpstreamGovernor(new MockEnvironment(), 0, 0, initialConcurrency, 1, maxConcurrency, maxAttempts, 1, 1, 0);
+    }
+
+    private static Object throttledAfter(UpstreamGovernor governor, CountDownLatch admitted) {
+        return assertThrows(UpstreamHttpException.class, () -> governor.call(MODEL, UpstreamGovernor.Priority.BULK, 0, () -> {
+            admitted.countDown();
+            admitted.await();
+            throw new UpstreamHttpException(429, null);
+        }));
+    }
+
+    private static UpstreamModelStats stats(UpstreamGovernor governor) {
+        return governor.stats().stream().filter(stats -> stats.getModel().equals(MODEL)).findFirst().orElseThrow();
+    }
+
+    private static void awaitStats(UpstreamGovernor governor, Predicate<UpstreamModelStats> condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (governor.stats().stream().anyMatch(stats -> stats.getModel().equals(MODEL) && condition.test(stats))) {
+                return;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted while waiting for the lane.");
+            }
+        }
+        fail("Lane did not reach the expected state within 5 s.");
+    }
+}